@@ -0,0 +1,54 @@
+package org.genfork.rpc.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service and payloads shared by the benchmarks, a small DTO graph of a chatty call.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public interface BenchmarkService {
+	Payload echo(Payload payload);
+
+	class Payload {
+		private long id;
+		private String name;
+		private List<Item> items;
+
+		public static Payload of(int items) {
+			final Payload payload = new Payload();
+			payload.id = 42;
+			payload.name = "payload-" + items;
+			payload.items = new ArrayList<>(items);
+			for (int i = 0; i < items; i++) {
+				payload.items.add(new Item(i, "item-" + i, i * 0.5));
+			}
+
+			return payload;
+		}
+	}
+
+	class Item {
+		private int position;
+		private String title;
+		private double price;
+
+		public Item() {
+		}
+
+		public Item(int position, String title, double price) {
+			this.position = position;
+			this.title = title;
+			this.price = price;
+		}
+	}
+
+	class Impl implements BenchmarkService {
+		@Override
+		public Payload echo(Payload payload) {
+			return payload;
+		}
+	}
+}
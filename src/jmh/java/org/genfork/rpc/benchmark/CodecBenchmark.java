@@ -0,0 +1,99 @@
+package org.genfork.rpc.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.genfork.rpc.codec.Codec;
+import org.genfork.rpc.codec.Codecs;
+import org.genfork.rpc.codec.Protocol;
+import org.genfork.rpc.data.DefaultReply;
+import org.genfork.rpc.data.DefaultRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of the representative {@link DefaultRequest} and {@link DefaultReply} bodies per {@link Codec},
+ * with and without the negotiated class dictionary. Codecs registered through {@link Codecs} are compared
+ * with {@code -p codec=kryo,<name>}, encoded sizes are printed on setup.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+	@Param("kryo")
+	private String codec;
+
+	@Param({"false", "true"})
+	private boolean dictionary;
+
+	@Param({"1", "32"})
+	private int items;
+
+	private Codec selected;
+	private Protocol protocol;
+	private DefaultRequest request;
+	private DefaultReply reply;
+
+	private ByteBuf out;
+	private ByteBuf encodedRequest, encodedReply;
+
+	@Setup
+	public void setup() {
+		selected = Codecs.get(codec);
+		protocol = Fixtures.protocol(selected, dictionary);
+
+		final BenchmarkService.Payload payload = BenchmarkService.Payload.of(items);
+		request = Fixtures.request(payload);
+		reply = Fixtures.reply(payload);
+
+		out = PooledByteBufAllocator.DEFAULT.directBuffer(64 * 1024);
+
+		encodedRequest = PooledByteBufAllocator.DEFAULT.directBuffer();
+		selected.encode(protocol, encodedRequest, request);
+
+		encodedReply = PooledByteBufAllocator.DEFAULT.directBuffer();
+		selected.encode(protocol, encodedReply, reply);
+
+		System.out.println("\n" + codec + ", dictionary=" + dictionary + ", items=" + items
+				+ ": request " + encodedRequest.readableBytes() + " bytes, reply " + encodedReply.readableBytes() + " bytes");
+	}
+
+	@TearDown
+	public void tearDown() {
+		out.release();
+		encodedRequest.release();
+		encodedReply.release();
+	}
+
+	@Benchmark
+	public int encodeRequest() {
+		out.clear();
+		selected.encode(protocol, out, request);
+		return out.writerIndex();
+	}
+
+	@Benchmark
+	public DefaultRequest decodeRequest() {
+		encodedRequest.readerIndex(0);
+		return selected.decode(protocol, encodedRequest, DefaultRequest.class);
+	}
+
+	@Benchmark
+	public int encodeReply() {
+		out.clear();
+		selected.encode(protocol, out, reply);
+		return out.writerIndex();
+	}
+
+	@Benchmark
+	public DefaultReply decodeReply() {
+		encodedReply.readerIndex(0);
+		return selected.decode(protocol, encodedReply, DefaultReply.class);
+	}
+}
@@ -0,0 +1,48 @@
+package org.genfork.rpc.benchmark;
+
+import org.genfork.rpc.codec.ClassDictionary;
+import org.genfork.rpc.codec.Codec;
+import org.genfork.rpc.codec.MethodTable;
+import org.genfork.rpc.codec.Protocol;
+import org.genfork.rpc.data.DefaultReply;
+import org.genfork.rpc.data.DefaultRequest;
+
+/**
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+final class Fixtures {
+	static {
+		ClassDictionary.registerService(BenchmarkService.class);
+	}
+
+	private Fixtures() {
+	}
+
+	static DefaultRequest request(BenchmarkService.Payload payload) {
+		try {
+			final DefaultRequest request = new DefaultRequest(BenchmarkService.class,
+					BenchmarkService.class.getMethod("echo", BenchmarkService.Payload.class), new Object[]{payload}, false);
+			request.setRequestId(1);
+			return request;
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static DefaultReply reply(BenchmarkService.Payload payload) {
+		return new DefaultReply(1, payload);
+	}
+
+	/**
+	 * Negotiated protocol of a channel, with the class dictionary of the benchmark service if {@code dictionary} is set.
+	 */
+	static Protocol protocol(Codec codec, boolean dictionary) {
+		final int features = Protocol.CHUNKED_FRAMES | Protocol.CODEC | (dictionary ? Protocol.CLASS_DICTIONARY : 0);
+		final Protocol local = new Protocol(features, Protocol.DEFAULT_MAX_FRAME_LENGTH,
+				dictionary ? ClassDictionary.local() : null, MethodTable.EMPTY)
+				.withCodec(codec);
+
+		return local.negotiate(local, MethodTable.EMPTY);
+	}
+}
@@ -0,0 +1,74 @@
+package org.genfork.rpc.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.genfork.rpc.KryoCodec;
+import org.genfork.rpc.codec.*;
+import org.genfork.rpc.data.DefaultReply;
+import org.genfork.rpc.data.DefaultRequest;
+import org.genfork.rpc.data.DefaultRequestData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A message through the frame codec handlers of the pipeline: encoded by {@link FrameEncoder},
+ * split by {@link FrameDecoder}, passed by {@link ChunkAggregator} and decoded by {@link MessageDecoder}.
+ * Payloads over {@link ChunkWriter#CHUNK_SIZE} are not chunked here, the writer needs a flushing channel.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+	@Param({"1", "32"})
+	private int items;
+
+	@Param({"NONE", "LZ4"})
+	private Compression compression;
+
+	private EmbeddedChannel client, server;
+	private BenchmarkService.Payload payload;
+
+	@Setup
+	public void setup() {
+		final Protocol protocol = Fixtures.protocol(KryoCodec.INSTANCE, true)
+				.withCompression(compression, 256);
+
+		client = new EmbeddedChannel(FrameEncoder.INSTANCE,
+				new FrameDecoder(), new ChunkAggregator(16, Long.MAX_VALUE), MessageDecoder.REPLIES);
+		client.attr(Protocol.PROTOCOL).set(protocol);
+
+		server = new EmbeddedChannel(FrameEncoder.INSTANCE,
+				new FrameDecoder(), new ChunkAggregator(16, Long.MAX_VALUE), MessageDecoder.REQUESTS);
+		server.attr(Protocol.PROTOCOL).set(protocol);
+
+		payload = BenchmarkService.Payload.of(items);
+	}
+
+	@TearDown
+	public void tearDown() {
+		client.finishAndReleaseAll();
+		server.finishAndReleaseAll();
+	}
+
+	@Benchmark
+	public Object request() {
+		client.writeOutbound(new DefaultRequestData<>(new CompletableFuture<>(), Fixtures.request(payload)));
+		server.writeInbound(client.<ByteBuf>readOutbound());
+		return server.<DefaultRequest>readInbound();
+	}
+
+	@Benchmark
+	public Object reply() {
+		server.writeOutbound(Fixtures.reply(payload));
+		client.writeInbound(server.<ByteBuf>readOutbound());
+		return client.<DefaultReply>readInbound();
+	}
+}
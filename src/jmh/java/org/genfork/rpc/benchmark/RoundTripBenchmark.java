@@ -0,0 +1,94 @@
+package org.genfork.rpc.benchmark;
+
+import org.genfork.rpc.ClientConnection;
+import org.genfork.rpc.SyncClient;
+import org.genfork.rpc.SyncServer;
+import org.genfork.rpc.SyncServiceOptions;
+import org.genfork.rpc.SyncServiceProvider;
+import org.genfork.rpc.codec.Compression;
+import org.genfork.rpc.context.LoopGroupFactory;
+import org.genfork.rpc.context.Transport;
+import org.genfork.rpc.data.DefaultRequest;
+import org.genfork.rpc.lock.LockRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls of a bound service over a loopback connection: a single call waiting for its reply
+ * and a window of concurrent calls on the same connection.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoundTripBenchmark {
+	private static final int WINDOW = 64;
+
+	@Param({"1", "32"})
+	private int items;
+
+	@Param({"NONE", "LZ4"})
+	private Compression compression;
+
+	private SyncServer server;
+	private SyncClient client;
+	private ClientConnection connection;
+
+	private Method echo;
+	private BenchmarkService.Payload payload;
+
+	@Setup
+	public void setup() throws Exception {
+		SyncServiceProvider.getInstance().bind(BenchmarkService.class, new BenchmarkService.Impl());
+
+		final SyncServiceOptions options = SyncServiceOptions.defaults()
+				.compression(compression, 256);
+
+		final int port = 20000 + (int) (Math.random() * 10000);
+		server = new SyncServer(Transport.NIO, null, null, "127.0.0.1", port, options,
+				new LockRegistry(null, Executors.newCachedThreadPool(), 300_000), null);
+		server.start();
+
+		client = SyncClient.create("127.0.0.1", port, LoopGroupFactory.getClientGroup(Transport.NIO), options);
+		connection = client.connect();
+
+		echo = BenchmarkService.class.getMethod("echo", BenchmarkService.Payload.class);
+		payload = BenchmarkService.Payload.of(items);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		// as Endpoint does, the fork does not wait for the connections to close
+		client.shutdownAsync();
+		server.stop();
+	}
+
+	@Benchmark
+	public Object call() {
+		return connection.async(newRequest()).join();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WINDOW)
+	public void window() {
+		final CompletableFuture<?>[] calls = new CompletableFuture[WINDOW];
+		for (int i = 0; i < WINDOW; i++) {
+			calls[i] = connection.async(newRequest());
+		}
+
+		CompletableFuture.allOf(calls).join();
+	}
+
+	private DefaultRequest newRequest() {
+		return new DefaultRequest(BenchmarkService.class, echo, new Object[]{payload}, false);
+	}
+}
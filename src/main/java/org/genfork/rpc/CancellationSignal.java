@@ -0,0 +1,107 @@
+package org.genfork.rpc;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancellation of the request executed by a bound service method. The signal is available through {@link #current()}
+ * while the method is invoked, a method which completes its result asynchronously has to capture it before returning.
+ * The signal is cancelled when the client abandons the request, and is treated as cancelled once the deadline has passed.
+ * A returned {@link java.util.concurrent.CompletableFuture} is cancelled together with the signal.
+ * <p>
+ * Methods returning a plain value are invoked on the event loop of the channel, the cancel of the client is read
+ * after such a method has returned, so only the deadline is seen by {@link #isCancelled()} while it runs.
+ * Long running methods should complete a future on their own executor to be cancellable.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Slf4j
+public class CancellationSignal {
+	public static final CancellationSignal NONE = new CancellationSignal(-1);
+
+	private static final ThreadLocal<CancellationSignal> CURRENT = new ThreadLocal<>();
+
+	@Getter
+	private final long deadline;
+
+	private volatile boolean cancelled;
+
+	private List<Runnable> listeners;
+
+	public CancellationSignal(long deadline) {
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Signal of the request invoked by the current thread, {@link #NONE} outside of an invocation.
+	 */
+	public static CancellationSignal current() {
+		final CancellationSignal signal = CURRENT.get();
+		return signal != null ? signal : NONE;
+	}
+
+	public static void set(CancellationSignal signal) {
+		CURRENT.set(signal);
+	}
+
+	public static void clear() {
+		CURRENT.remove();
+	}
+
+	public boolean isCancelled() {
+		return cancelled || deadline != -1 && System.currentTimeMillis() > deadline;
+	}
+
+	/**
+	 * Runs the action on cancel, immediately if the signal is already cancelled. The deadline does not trigger actions.
+	 */
+	public void onCancel(Runnable action) {
+		if (this == NONE) {
+			return;
+		}
+
+		synchronized (this) {
+			if (!cancelled) {
+				if (listeners == null) {
+					listeners = new ArrayList<>(1);
+				}
+
+				listeners.add(action);
+				return;
+			}
+		}
+
+		run(action);
+	}
+
+	public void cancel() {
+		final List<Runnable> actions;
+		synchronized (this) {
+			if (cancelled || this == NONE) {
+				return;
+			}
+
+			cancelled = true;
+			actions = listeners;
+			listeners = null;
+		}
+
+		if (actions != null) {
+			for (Runnable action : actions) {
+				run(action);
+			}
+		}
+	}
+
+	private static void run(Runnable action) {
+		try {
+			action.run();
+		} catch (Exception e) {
+			log.warn("Cancel action failed", e);
+		}
+	}
+}
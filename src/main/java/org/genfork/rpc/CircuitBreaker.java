@@ -0,0 +1,213 @@
+package org.genfork.rpc;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.genfork.rpc.exceptions.CircuitBreakerOpenException;
+import org.genfork.rpc.exceptions.RemoteServiceTimeoutException;
+import org.genfork.rpc.exceptions.RequestRejectedException;
+import org.genfork.rpc.exceptions.ServiceRemoteException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Breaker over the outcomes of the last {@code windowSize} requests of an endpoint. Opens when the failure rate
+ * or the timeout rate reaches its threshold or after {@code consecutiveFailures}, while open the requests fail with
+ * {@link CircuitBreakerOpenException}. After {@code openDuration} {@code halfOpenTrials} requests are let through,
+ * the breaker closes when all of them succeed and opens again on the first failure or when they are not concluded
+ * within {@code halfOpenTimeout}. Errors thrown by the remote service itself are not failures of the endpoint,
+ * rejected and cancelled requests are not outcomes at all and give their trial permit back.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Slf4j
+public class CircuitBreaker {
+	private static final byte SUCCESS = 0, FAILURE = 1, TIMEOUT = 2;
+
+	public enum State {
+		CLOSED,
+		OPEN,
+		HALF_OPEN
+	}
+
+	private final String name;
+	private final SyncServiceOptions options;
+
+	private final byte[] window;
+	private int position, calls, failures, timeouts, consecutiveFailures;
+
+	private volatile State state = State.CLOSED;
+	private volatile long openedAt, halfOpenedAt;
+	private final AtomicInteger trials = new AtomicInteger();
+	private final AtomicInteger trialSuccesses = new AtomicInteger();
+
+	public CircuitBreaker(String name, SyncServiceOptions options, MeterRegistry meterRegistry, String service) {
+		this.name = name;
+		this.options = options;
+		this.window = new byte[options.getBreakerWindowSize()];
+
+		if (meterRegistry != null) {
+			Gauge.builder("sync-client-circuit-breaker-state", this, v -> v.state.ordinal())
+					.description("0 - closed, 1 - open, 2 - half open")
+					.tag("service", service)
+					.tag("remote", name)
+					.register(meterRegistry);
+		}
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * @return true if the breaker is closed, half open or ready to become half open
+	 */
+	public boolean isAvailable() {
+		return state != State.OPEN || System.currentTimeMillis() - openedAt >= options.getBreakerOpenDuration();
+	}
+
+	/**
+	 * @return false if the request must not be sent
+	 */
+	public boolean tryAcquire() {
+		State state = this.state;
+		if (state == State.CLOSED) {
+			return true;
+		}
+
+		if (state == State.OPEN) {
+			if (System.currentTimeMillis() - openedAt < options.getBreakerOpenDuration()) {
+				return false;
+			}
+
+			transition(State.OPEN, State.HALF_OPEN);
+		} else if (System.currentTimeMillis() - halfOpenedAt >= options.getBreakerHalfOpenTimeout()) {
+			// trials are lost or hang, the endpoint is probed again after the next open period
+			transition(State.HALF_OPEN, State.OPEN);
+			return false;
+		}
+
+		// rejected attempts take nothing, so every permit taken here is given back by release or an outcome
+		int current;
+		do {
+			current = trials.get();
+			if (current >= options.getBreakerHalfOpenTrials()) {
+				return false;
+			}
+		} while (!trials.compareAndSet(current, current + 1));
+
+		return true;
+	}
+
+	/**
+	 * Gives back the trial permit of the request which ends without an outcome.
+	 */
+	public void release() {
+		if (state != State.HALF_OPEN) {
+			return;
+		}
+
+		int current;
+		do {
+			current = trials.get();
+		} while (current > 0 && !trials.compareAndSet(current, current - 1));
+	}
+
+	public void acquire() {
+		if (!tryAcquire()) {
+			throw new CircuitBreakerOpenException("Circuit breaker of " + name + " is open");
+		}
+	}
+
+	public void onComplete(Throwable cause) {
+		final Throwable error = cause instanceof CompletionException ? cause.getCause() : cause;
+		if (error instanceof CircuitBreakerOpenException || error instanceof RequestRejectedException
+				|| error instanceof CancellationException) {
+			release();
+			return;
+		}
+
+		final byte outcome = error == null || error instanceof ServiceRemoteException
+				? SUCCESS
+				: error instanceof RemoteServiceTimeoutException ? TIMEOUT : FAILURE;
+
+		switch (state) {
+			case CLOSED -> record(outcome);
+			case HALF_OPEN -> {
+				if (outcome != SUCCESS) {
+					transition(State.HALF_OPEN, State.OPEN);
+				} else if (trialSuccesses.incrementAndGet() >= options.getBreakerHalfOpenTrials()) {
+					transition(State.HALF_OPEN, State.CLOSED);
+				}
+			}
+			case OPEN -> {
+				// replies of the requests sent before opening
+			}
+		}
+	}
+
+	private synchronized void record(byte outcome) {
+		if (state != State.CLOSED) {
+			return;
+		}
+
+		if (calls == window.length) {
+			final byte evicted = window[position];
+			if (evicted == FAILURE) {
+				failures--;
+			} else if (evicted == TIMEOUT) {
+				timeouts--;
+			}
+		} else {
+			calls++;
+		}
+
+		window[position] = outcome;
+		position = (position + 1) % window.length;
+
+		if (outcome == SUCCESS) {
+			consecutiveFailures = 0;
+			return;
+		}
+
+		if (outcome == FAILURE) {
+			failures++;
+		} else {
+			timeouts++;
+		}
+
+		consecutiveFailures++;
+
+		final boolean tripped = consecutiveFailures >= options.getBreakerConsecutiveFailures()
+				|| calls >= options.getBreakerMinimumCalls()
+				&& ((failures + timeouts) * 100 >= options.getBreakerFailureRate() * calls
+				|| timeouts * 100 >= options.getBreakerTimeoutRate() * calls);
+		if (tripped) {
+			transition(State.CLOSED, State.OPEN);
+		}
+	}
+
+	private synchronized void transition(State from, State to) {
+		if (state != from) {
+			return;
+		}
+
+		switch (to) {
+			case OPEN -> openedAt = System.currentTimeMillis();
+			case HALF_OPEN -> {
+				trials.set(0);
+				trialSuccesses.set(0);
+				halfOpenedAt = System.currentTimeMillis();
+			}
+			case CLOSED -> {
+				position = calls = failures = timeouts = consecutiveFailures = 0;
+			}
+		}
+
+		state = to;
+		log.info("Circuit breaker of {} is {}", name, to);
+	}
+}
@@ -4,25 +4,46 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.util.AttributeKey;
+import io.netty.util.collection.LongObjectMap;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.genfork.rpc.codec.Protocol;
 import org.genfork.rpc.data.*;
 import org.genfork.rpc.exceptions.RemoteServiceTimeoutException;
+import org.genfork.rpc.exceptions.RequestRejectedException;
+import org.genfork.rpc.exceptions.ServiceRemoteException;
 import org.genfork.rpc.exceptions.ShutdownException;
 import org.genfork.rpc.handlers.MessageQueueHandler;
-import org.genfork.rpc.timer.Timers.WheelTimer.TimerPausable;
+import org.genfork.rpc.util.ChannelSupplier;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author: GenCloud
  * @date: 2023/01
  */
 @Slf4j
-public class ClientConnection {
+public class ClientConnection implements ChannelSupplier.Candidate {
 	private static final AttributeKey<ClientConnection> CONNECTION = AttributeKey.valueOf("connection");
 
+	// encoded size is known after the codec of the new channel is negotiated only
+	private static final long REQUEST_SIZE_ESTIMATE = 64, ARGUMENT_SIZE_ESTIMATE = 16;
+
+	private static final double EWMA_ALPHA = 0.2;
+
+	private static final long PENDING_SWEEP_INTERVAL_MILLIS = 10;
+
 	@Getter
 	private final SyncClient syncClient;
 
@@ -34,6 +55,21 @@ public class ClientConnection {
 
 	private final CompletableFuture<?> connectionPromise;
 
+	private final AtomicLong requestIds = new AtomicLong();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicLong queuedBytes = new AtomicLong();
+	private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean pendingSweep = new AtomicBoolean();
+
+	@Getter
+	private volatile long lastActivity = System.currentTimeMillis();
+
+	// average round trip time of the heartbeats in nanos, 0 until the first pong
+	private volatile double rtt;
+	// average time from the write of a request until it is written to the socket in nanos
+	private volatile double writeLatency;
+
 	public <C> ClientConnection(SyncClient syncClient,
 	                            Channel channel,
 	                            CompletableFuture<C> connectionPromise) {
@@ -59,18 +95,63 @@ public class ClientConnection {
 		return channel.isOpen();
 	}
 
+	@Override
 	public boolean isActive() {
 		return channel.isActive();
 	}
 
+	@Override
+	public int getOutstanding() {
+		return inFlight.get() + queued.get();
+	}
+
+	/**
+	 * With heartbeats enabled, a connection with the higher round trip time needs proportionally
+	 * fewer outstanding requests to be avoided.
+	 */
+	@Override
+	public double getLoad() {
+		return (rtt + 1) * (getOutstanding() + 1);
+	}
+
+	public long getRtt() {
+		return (long) rtt;
+	}
+
+	public void onHeartbeat(long rttNanos) {
+		final double rtt = this.rtt;
+		this.rtt = rtt == 0 ? rttNanos : rtt + (rttNanos - rtt) * EWMA_ALPHA;
+	}
+
+	public long getWriteLatency() {
+		return (long) writeLatency;
+	}
+
+	private void onWritten(long latencyNanos) {
+		final double writeLatency = this.writeLatency;
+		this.writeLatency = writeLatency == 0 ? latencyNanos : writeLatency + (latencyNanos - writeLatency) * EWMA_ALPHA;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public int getQueued() {
+		return queued.get();
+	}
+
 	public void updateChannel(Channel channel) {
 		if (channel == null) {
 			throw new NullPointerException();
 		}
 
 		this.channel = channel;
+		// the new channel may take another route
+		rtt = 0;
 
 		channel.attr(CONNECTION).set(this);
+
+		drainPendingWrites();
 	}
 
 	public ChannelFuture send(IRequest request) {
@@ -84,109 +165,395 @@ public class ClientConnection {
 		}
 
 		final CompletableFuture<R> promise = new CompletableFuture<>();
+		listen(promise);
+
+		message.setRequestId(requestIds.incrementAndGet());
 
-		final ChannelFuture writeFuture = switch (message) {
-			case AuthRequest authRequest -> getAuthRequestFuture(promise, authRequest);
-			case DefaultRequest defaultRequest -> getDefaultRequestFuture(promise, defaultRequest);
-			case LockRequest lockRequest -> getLockRequestFuture(promise, lockRequest);
+		switch (message) {
+			// handshake precedes any traffic of the channel and is never held back
+			case AuthRequest authRequest -> {
+				inFlight.incrementAndGet();
+				write(getAuthRequestData(promise, authRequest), promise);
+			}
+			case DefaultRequest defaultRequest -> submit(getDefaultRequestData(promise, defaultRequest), promise);
+			case LockRequest lockRequest -> submit(getLockRequestData(promise, lockRequest), promise);
 			default ->
 					throw new UnsupportedOperationException("Unsupported message type - " + message.getClass().getName());
-		};
+		}
 
-		writeFuture.addListener((ChannelFutureListener) future -> {
-			if (!future.isSuccess()) {
-				promise.completeExceptionally(future.cause());
+		return promise;
+	}
+
+	/**
+	 * Sends the requests in one {@link BatchRequest} frame, every request is completed by its own future.
+	 */
+	public List<CompletableFuture<Object>> async(List<DefaultRequest> requests) {
+		final List<CompletableFuture<Object>> promises = new ArrayList<>(requests.size());
+		if (syncClient.getEventLoopGroup().isShuttingDown()) {
+			final ShutdownException cause = new ShutdownException("Client is shutdown");
+			for (int i = 0; i < requests.size(); i++) {
+				promises.add(CompletableFuture.failedFuture(cause));
 			}
-		});
 
-		return promise;
+			return promises;
+		}
+
+		final List<DefaultRequestData<Object>> entries = new ArrayList<>(requests.size());
+		// the latest deadline of the entries, none if any entry has none
+		long deadline = -1;
+		boolean unbounded = false;
+		for (DefaultRequest defaultRequest : requests) {
+			final CompletableFuture<Object> promise = new CompletableFuture<>();
+			defaultRequest.setRequestId(requestIds.incrementAndGet());
+			setDefaultRequestDeadline(defaultRequest);
+
+			if (defaultRequest.getDeadline() == -1) {
+				unbounded = true;
+			}
+
+			deadline = Math.max(deadline, defaultRequest.getDeadline());
+			entries.add(new DefaultRequestData<>(promise, defaultRequest));
+			promises.add(promise);
+		}
+
+		final CompletableFuture<?>[] batchPromises = promises.toArray(CompletableFuture[]::new);
+		listen(batchPromises);
+
+		final BatchRequestData batchRequest = new BatchRequestData(requestIds.incrementAndGet(), unbounded ? -1 : deadline, entries);
+		submit(batchRequest, batchPromises);
+
+		return promises;
 	}
 
-	private <R> ChannelFuture getAuthRequestFuture(CompletableFuture<R> promise, AuthRequest authRequest) {
-		ChannelFuture writeFuture;
-		final Long executionTimeoutInMillis = syncClient.getOptions().getExecutionTimeoutInMillis();
-		if (executionTimeoutInMillis != null && executionTimeoutInMillis > 0) {
-			authRequest.setDeadline(System.currentTimeMillis() + executionTimeoutInMillis);
+	/**
+	 * Writes the request when the connection has room for it. With {@code maxInFlight} configured a request
+	 * over the limit, or while the channel is above its write buffer high water mark, is held in the queue
+	 * of {@code maxQueued} requests or rejected with {@link RequestRejectedException} when the queue is full.
+	 */
+	private void submit(IRequest request, CompletableFuture<?>... promises) {
+		lastActivity = System.currentTimeMillis();
+
+		final SyncServiceOptions options = syncClient.getOptions();
+		if (options.getReconnectBufferRequests() > 0 && !closed && !channel.isActive()) {
+			buffer(options, request, promises);
+			return;
+		}
+
+		final int permits = promises.length;
+		if (pendingWrites.isEmpty()) {
+			if (options.getMaxInFlight() <= 0) {
+				inFlight.addAndGet(permits);
+				write(request, promises);
+				return;
+			}
+
+			if (tryAcquire(permits)) {
+				write(request, promises);
+				return;
+			}
+		}
+
+		if (queued.addAndGet(permits) > options.getMaxQueued() && options.getMaxInFlight() > 0) {
+			queued.addAndGet(-permits);
+			reject(request, permits, "Too many requests in flight: " + inFlight.get() + ", queued: " + queued.get());
+			return;
+		}
+
+		pendingWrites.add(new PendingWrite(request, promises, 0));
+		schedulePendingExpiry();
+		drainPendingWrites();
+	}
+
+	/**
+	 * Holds the request until the watchdog installs a new channel, the buffer is bounded by the number of requests,
+	 * their approximate size and the time left before the deadline of the request.
+	 */
+	private void buffer(SyncServiceOptions options, IRequest request, CompletableFuture<?>[] promises) {
+		final int permits = promises.length;
+
+		final long deadline = request.deadline();
+		if (deadline > 0 && deadline - System.currentTimeMillis() < options.getReconnectBufferMinRemaining()) {
+			reject(request, permits, "Channel is reconnecting, deadline is too close");
+			return;
+		}
+
+		final long bytes = estimateSize(request);
+		final boolean overflow = queued.addAndGet(permits) > options.getReconnectBufferRequests();
+		if (queuedBytes.addAndGet(bytes) > options.getReconnectBufferBytes() || overflow) {
+			queued.addAndGet(-permits);
+			queuedBytes.addAndGet(-bytes);
+			reject(request, permits, "Channel is reconnecting, buffer is full: " + queued.get() + " requests, "
+					+ queuedBytes.get() + " bytes");
+			return;
+		}
+
+		pendingWrites.add(new PendingWrite(request, promises, bytes));
+		schedulePendingExpiry();
+		drainPendingWrites();
+	}
 
-			final TimerPausable pausable = startRequestTimeoutTimer(
-					promise,
-					authRequest.getRequestId(),
-					executionTimeoutInMillis
-			);
+	private void reject(IRequest request, int permits, String reason) {
+		syncClient.onRejected(permits);
+		request.tryFailure(new RequestRejectedException(reason + ", Client: " + syncClient));
+	}
+
+	/**
+	 * Writes the queued requests while the connection has room for them, called on a completed request,
+	 * on a writable channel and on a new channel of the connection.
+	 */
+	public void drainPendingWrites() {
+		PendingWrite pending;
+		while ((pending = pendingWrites.peek()) != null) {
+			final int permits = pending.promises().length;
+			if (pending.request().isExecuted()) {
+				// timed out while queued
+				if (pendingWrites.remove(pending)) {
+					dequeued(pending);
+				}
+
+				continue;
+			}
+
+			if (!tryAcquire(permits)) {
+				return;
+			}
 
-			promise.whenComplete((res, e) ->
-					pausable.cancel());
+			if (!pendingWrites.remove(pending)) {
+				release(permits);
+				continue;
+			}
+
+			dequeued(pending);
+			write(pending.request(), pending.promises());
 		}
+	}
+
+	/**
+	 * Fails the queued requests whose deadline has passed, runs on the event loop of the channel
+	 * while the queue is not empty. Written requests are expired by the {@link MessageQueueHandler}.
+	 */
+	private void expirePendingWrites() {
+		final long now = System.currentTimeMillis();
+		for (PendingWrite pending : pendingWrites) {
+			final IRequest request = pending.request();
+			if (request instanceof BatchRequestData batchRequest) {
+				for (DefaultRequestData<Object> entry : batchRequest.getRequests()) {
+					if (isExpired(entry, now)) {
+						entry.tryFailure(newTimeoutException(entry.requestId()));
+					}
+				}
+
+				if (request.isExecuted() && pendingWrites.remove(pending)) {
+					dequeued(pending);
+				}
+			} else if (isExpired(request, now) && pendingWrites.remove(pending)) {
+				dequeued(pending);
+				request.tryFailure(newTimeoutException(request.requestId()));
+			}
+		}
+
+		pendingSweep.set(false);
+		if (!pendingWrites.isEmpty()) {
+			schedulePendingExpiry();
+		}
+	}
 
-		writeFuture = send(new AuthRequestData<>(promise, authRequest));
-		return writeFuture;
+	private static boolean isExpired(IRequest request, long now) {
+		final long deadline = request.deadline();
+		return deadline != -1 && now >= deadline;
 	}
 
-	private <R> ChannelFuture getDefaultRequestFuture(CompletableFuture<R> promise, DefaultRequest defaultRequest) {
-		ChannelFuture writeFuture;
+	private void schedulePendingExpiry() {
+		if (!pendingSweep.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			channel.eventLoop().schedule(this::expirePendingWrites, PENDING_SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// event loop is shut down, the queue is failed by close
+			pendingSweep.set(false);
+		}
+	}
+
+	public RemoteServiceTimeoutException newTimeoutException(long requestId) {
+		return new RemoteServiceTimeoutException("Execution timeout for request: " + requestId + ", Client: " + syncClient);
+	}
+
+	private void dequeued(PendingWrite pending) {
+		queued.addAndGet(-pending.promises().length);
+		queuedBytes.addAndGet(-pending.bytes());
+	}
+
+	private boolean tryAcquire(int permits) {
+		final int maxInFlight = syncClient.getOptions().getMaxInFlight();
+		if (maxInFlight <= 0) {
+			if (!channel.isActive()) {
+				return false;
+			}
+
+			inFlight.addAndGet(permits);
+			return true;
+		}
+
+		if (!channel.isWritable()) {
+			return false;
+		}
+
+		for (;;) {
+			final int current = inFlight.get();
+			// a batch larger than the limit still goes out alone
+			if (current > 0 && current + permits > maxInFlight) {
+				return false;
+			}
+
+			if (inFlight.compareAndSet(current, current + permits)) {
+				return true;
+			}
+		}
+	}
+
+	private void release(int permits) {
+		inFlight.addAndGet(-permits);
+	}
+
+	/**
+	 * The listener sees every outcome, also of the requests which are rejected, expired or failed before the write.
+	 */
+	private void listen(CompletableFuture<?> promise) {
+		final SyncClient.RequestListener listener = syncClient.getRequestListener();
+		if (listener == null) {
+			return;
+		}
+
+		final long startTime = System.nanoTime();
+		promise.whenComplete((res, e) -> listener.onComplete(System.nanoTime() - startTime, e));
+	}
+
+	/**
+	 * A batch is sent under one permit of the endpoint, so the listener sees one outcome for it once every
+	 * call completes: the first call not answered by the endpoint, otherwise success when any call was
+	 * answered, otherwise the cancellation or rejection.
+	 */
+	private void listen(CompletableFuture<?>[] promises) {
+		final SyncClient.RequestListener listener = syncClient.getRequestListener();
+		if (listener == null) {
+			return;
+		}
+
+		final long startTime = System.nanoTime();
+		CompletableFuture.allOf(promises).whenComplete((res, e) -> listener.onComplete(System.nanoTime() - startTime, outcomeOf(promises)));
+	}
+
+	private static Throwable outcomeOf(CompletableFuture<?>[] promises) {
+		Throwable neutral = null;
+		boolean answered = false;
+		for (CompletableFuture<?> promise : promises) {
+			if (!promise.isCompletedExceptionally()) {
+				answered = true;
+				continue;
+			}
+
+			try {
+				promise.join();
+			} catch (CancellationException e) {
+				neutral = e;
+			} catch (CompletionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof RequestRejectedException) {
+					neutral = cause;
+				} else if (cause instanceof ServiceRemoteException) {
+					answered = true;
+				} else {
+					return cause;
+				}
+			}
+		}
+
+		return answered ? null : neutral;
+	}
+
+	private void write(IRequest request, CompletableFuture<?>... promises) {
+		for (int i = 0; i < promises.length; i++) {
+			final long requestId = request instanceof BatchRequestData batchRequest
+					? batchRequest.getRequests().get(i).requestId()
+					: request.requestId();
+
+			promises[i].whenComplete((res, e) -> {
+				release(1);
+				if (e instanceof CancellationException) {
+					cancel(requestId);
+				}
+
+				if (!pendingWrites.isEmpty()) {
+					drainPendingWrites();
+				}
+			});
+		}
+
+		final long startTime = System.nanoTime();
+		send(request).addListener((ChannelFutureListener) future -> {
+			if (!future.isSuccess()) {
+				request.tryFailure(future.cause());
+				return;
+			}
+
+			onWritten(System.nanoTime() - startTime);
+		});
+	}
+
+	private <R> AuthRequestData<R> getAuthRequestData(CompletableFuture<R> promise, AuthRequest authRequest) {
 		final Long executionTimeoutInMillis = syncClient.getOptions().getExecutionTimeoutInMillis();
 		if (executionTimeoutInMillis != null && executionTimeoutInMillis > 0) {
-			defaultRequest.setDeadline(System.currentTimeMillis() + executionTimeoutInMillis);
+			authRequest.setDeadline(System.currentTimeMillis() + executionTimeoutInMillis);
+		}
 
-			final TimerPausable pausable = startRequestTimeoutTimer(
-					promise,
-					defaultRequest.getRequestId(),
-					executionTimeoutInMillis
-			);
+		return new AuthRequestData<>(promise, authRequest);
+	}
 
-			promise.whenComplete((res, e) ->
-					pausable.cancel());
-		}
+	private <R> DefaultRequestData<R> getDefaultRequestData(CompletableFuture<R> promise, DefaultRequest defaultRequest) {
+		setDefaultRequestDeadline(defaultRequest);
+		return new DefaultRequestData<>(promise, defaultRequest);
+	}
 
-		writeFuture = send(new DefaultRequestData<>(promise, defaultRequest));
-		return writeFuture;
+	/**
+	 * Timeouts are tracked by the deadline of the request, see {@link MessageQueueHandler} and {@link #expirePendingWrites()}.
+	 */
+	private void setDefaultRequestDeadline(DefaultRequest defaultRequest) {
+		final Long executionTimeoutInMillis = defaultRequest.getTimeout() > 0
+				? Long.valueOf(defaultRequest.getTimeout())
+				: syncClient.getOptions().getExecutionTimeoutInMillis();
+		if (executionTimeoutInMillis != null && executionTimeoutInMillis > 0) {
+			defaultRequest.setDeadline(System.currentTimeMillis() + executionTimeoutInMillis);
+		}
 	}
 
-	private <R> ChannelFuture getLockRequestFuture(CompletableFuture<R> promise, LockRequest lockRequest) {
-		ChannelFuture writeFuture;
+	private <R> LockRequestData<R> getLockRequestData(CompletableFuture<R> promise, LockRequest lockRequest) {
 		final Long executionTimeoutInMillis = syncClient.getOptions().getExecutionTimeoutInMillis();
+
+		long deadline = -1;
 		if (lockRequest.getWaitTime() > 0) {
-			final TimerPausable pausable = startRequestTimeoutTimer(
-					promise,
-					lockRequest.getRequestId(),
-					lockRequest.getWaitTime()
-			);
-
-			promise.whenComplete((res, e) ->
-					pausable.cancel());
+			deadline = System.currentTimeMillis() + lockRequest.getWaitTime();
 		} else if (executionTimeoutInMillis != null && executionTimeoutInMillis > 0) {
-			final TimerPausable pausable = startRequestTimeoutTimer(
-					promise,
-					lockRequest.getRequestId(),
-					executionTimeoutInMillis
-			);
-
-			promise.whenComplete((res, e) ->
-					pausable.cancel());
+			deadline = System.currentTimeMillis() + executionTimeoutInMillis;
 		}
 
-		writeFuture = send(new LockRequestData<>(promise, lockRequest));
-		return writeFuture;
+		return new LockRequestData<>(promise, lockRequest, deadline);
 	}
 
-	private <R> TimerPausable startRequestTimeoutTimer(CompletableFuture<R> promise, String requestId, long timeout) {
-		return TimeoutTimer
-				.getTimer()
-				.submit(() -> {
-							final RemoteServiceTimeoutException ex =
-									new RemoteServiceTimeoutException(
-											"Execution timeout for request: " + requestId + ", Client: " + syncClient
-									);
-
-							if (!promise.completeExceptionally(ex)) {
-								return;
-							}
-
-							final Map<String, RequestHolder> map = channel.attr(MessageQueueHandler.REQUEST_MAP).get();
-							map.remove(requestId);
-						},
-						timeout
-				);
+	/**
+	 * Forgets the pending request, the server is told to stop its execution if the channel negotiated
+	 * {@link Protocol#CANCELLATION}.
+	 */
+	private void cancel(long requestId) {
+		final Channel channel = this.channel;
+		channel.eventLoop().execute(() -> {
+			final LongObjectMap<RequestHolder> map = channel.attr(MessageQueueHandler.REQUEST_MAP).get();
+			if (map.remove(requestId) != null && channel.isActive()
+					&& Protocol.get(channel).isEnabled(Protocol.CANCELLATION)) {
+				channel.writeAndFlush(new CancelRequest(requestId), channel.voidPromise());
+			}
+		});
 	}
 
 	private void close() {
@@ -197,6 +564,13 @@ public class ClientConnection {
 
 	public ChannelFuture closeAsync() {
 		closed = true;
+
+		PendingWrite pending;
+		while ((pending = pendingWrites.poll()) != null) {
+			dequeued(pending);
+			pending.request().tryFailure(new ShutdownException("Connection is closed"));
+		}
+
 		close();
 		return channel.closeFuture();
 	}
@@ -209,4 +583,37 @@ public class ClientConnection {
 		fastReconnect.complete(null);
 		fastReconnect = null;
 	}
+
+	private static long estimateSize(IRequest request) {
+		return switch (request) {
+			case DefaultRequestData<?> data -> estimateSize(data.getDefaultRequest());
+			case BatchRequestData batch -> {
+				long size = 0;
+				for (DefaultRequestData<Object> data : batch.getRequests()) {
+					size += estimateSize(data.getDefaultRequest());
+				}
+
+				yield size;
+			}
+			default -> REQUEST_SIZE_ESTIMATE;
+		};
+	}
+
+	private static long estimateSize(DefaultRequest request) {
+		long size = REQUEST_SIZE_ESTIMATE;
+		if (request.getArgs() != null) {
+			for (Object arg : request.getArgs()) {
+				size += switch (arg) {
+					case byte[] bytes -> bytes.length;
+					case CharSequence chars -> chars.length();
+					case null, default -> ARGUMENT_SIZE_ESTIMATE;
+				};
+			}
+		}
+
+		return size;
+	}
+
+	private record PendingWrite(IRequest request, CompletableFuture<?>[] promises, long bytes) {
+	}
 }
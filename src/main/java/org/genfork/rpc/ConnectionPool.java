@@ -0,0 +1,181 @@
+package org.genfork.rpc;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.genfork.rpc.util.ChannelSupplier;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connections of an outbound service between {@code minConnections} and {@code maxConnections}.
+ * The pool starts with the first established connection, the other initial connections are {@link #add added} as they connect.
+ * Once all of them are there, a connection is opened when the outstanding requests per connection reach {@code growThreshold}
+ * or the average write latency of a busy connection reaches {@code growWriteLatency}, a connection without requests
+ * for {@code idleTimeout} is removed from the selection and closed once drained.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Slf4j
+public class ConnectionPool {
+	private static final long CHECK_INTERVAL_MILLIS = 1000;
+
+	private final SyncClient client;
+	@Getter
+	private final ChannelSupplier<ClientConnection> channels;
+	private final int minConnections, maxConnections, growThreshold;
+	private final long growWriteLatencyNanos, idleTimeout;
+
+	private final AtomicBoolean growing = new AtomicBoolean();
+	private final List<ClientConnection> retired = new CopyOnWriteArrayList<>();
+
+	private final ScheduledFuture<?> checkFuture;
+
+	public ConnectionPool(SyncClient client,
+	                      ClientConnection connection,
+	                      int minConnections,
+	                      int maxConnections,
+	                      int growThreshold,
+	                      long growWriteLatency,
+	                      long idleTimeout,
+	                      MeterRegistry meterRegistry,
+	                      String service) {
+		this.client = client;
+		this.channels = new ChannelSupplier<>(new ClientConnection[]{connection});
+		this.minConnections = minConnections;
+		this.maxConnections = Math.max(maxConnections, minConnections);
+		this.growThreshold = growThreshold;
+		this.growWriteLatencyNanos = TimeUnit.MILLISECONDS.toNanos(growWriteLatency);
+		this.idleTimeout = idleTimeout;
+
+		if (this.maxConnections > minConnections) {
+			checkFuture = client.getEventLoopGroup()
+					.scheduleAtFixedRate(this::check, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+		} else {
+			checkFuture = null;
+		}
+
+		if (meterRegistry != null) {
+			Gauge.builder("sync-client-pool-size", channels, ChannelSupplier::size)
+					.tag("service", service)
+					.tag("remote", client.getHost() + ":" + client.getPort())
+					.register(meterRegistry);
+		}
+	}
+
+	public ClientConnection get() {
+		final ClientConnection connection = channels.get();
+		if (connection.getOutstanding() >= growThreshold || isWriteLatent(connection)) {
+			grow();
+		}
+
+		return connection;
+	}
+
+	/**
+	 * The latency is updated by writes only, an idle connection keeps the value of its last writes.
+	 */
+	private boolean isWriteLatent(ClientConnection connection) {
+		return growWriteLatencyNanos > 0 && connection.getOutstanding() > 0
+				&& connection.getWriteLatency() >= growWriteLatencyNanos;
+	}
+
+	/**
+	 * Adds an initial connection established after the pool was created.
+	 */
+	public void add(ClientConnection connection) {
+		if (client.isShutdown()) {
+			connection.closeAsync();
+			return;
+		}
+
+		channels.add(connection);
+	}
+
+	private void grow() {
+		// initial connections still connecting are not replaced by new ones
+		if (channels.size() < minConnections || channels.size() >= maxConnections || client.isShutdown()
+				|| !growing.compareAndSet(false, true)) {
+			return;
+		}
+
+		client.connectAsync().whenComplete((connection, e) -> {
+			growing.set(false);
+
+			if (e != null) {
+				log.debug("Unable to open pool connection to {}", client.getResolvedAddr(), e);
+				return;
+			}
+
+			if (client.isShutdown()) {
+				connection.closeAsync();
+				return;
+			}
+
+			channels.add(connection);
+			log.debug("Pool of {} grown to {} connections", client.getResolvedAddr(), channels.size());
+		});
+	}
+
+	private void check() {
+		retired.removeIf(connection -> {
+			if (connection.getOutstanding() > 0) {
+				return false;
+			}
+
+			connection.closeAsync();
+			return true;
+		});
+
+		final ClientConnection[] connections = channels.getAll();
+
+		int outstanding = 0;
+		boolean latent = false;
+		for (ClientConnection connection : connections) {
+			outstanding += connection.getOutstanding();
+			latent |= isWriteLatent(connection);
+		}
+
+		if (outstanding >= growThreshold * connections.length || latent) {
+			grow();
+			return;
+		}
+
+		if (connections.length <= minConnections) {
+			return;
+		}
+
+		final long now = System.currentTimeMillis();
+		for (ClientConnection connection : connections) {
+			if (connection.getOutstanding() == 0 && now - connection.getLastActivity() >= idleTimeout) {
+				// one at a time, requests already routed to it are completed before close
+				if (channels.remove(connection)) {
+					retired.add(connection);
+					log.debug("Pool of {} shrunk to {} connections", client.getResolvedAddr(), channels.size());
+				}
+
+				return;
+			}
+		}
+	}
+
+	public void close() {
+		if (checkFuture != null) {
+			checkFuture.cancel(false);
+		}
+
+		for (ClientConnection connection : channels.getAll()) {
+			connection.closeAsync();
+		}
+
+		for (ClientConnection connection : retired) {
+			connection.closeAsync();
+		}
+	}
+}
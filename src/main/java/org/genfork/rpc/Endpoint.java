@@ -0,0 +1,250 @@
+package org.genfork.rpc;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.genfork.rpc.exceptions.RemoteServiceConnectionException;
+import org.genfork.rpc.exceptions.RemoteServiceTimeoutException;
+import org.genfork.rpc.exceptions.RequestRejectedException;
+import org.genfork.rpc.exceptions.WriteConnectionException;
+import org.genfork.rpc.util.ChannelSupplier;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One address of an outbound service with its own client and connection pool. Endpoints are balanced by
+ * the latency average multiplied by the outstanding requests, an endpoint failing {@code ejectAfterFailures}
+ * requests in a row by timeout or connection errors is ejected for {@code ejectionTime}.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Slf4j
+public class Endpoint implements ChannelSupplier.Candidate, SyncClient.RequestListener {
+	private static final double EWMA_ALPHA = 0.2;
+
+	@Getter
+	private final SyncClient client;
+	private final int ejectAfterFailures;
+	private final long ejectionTime;
+
+	private final AtomicInteger failures = new AtomicInteger();
+	private volatile long ejectedUntil;
+	private volatile double latency;
+
+	private volatile ConnectionPool pool;
+	private CompletableFuture<ConnectionPool> poolFuture;
+
+	@Getter
+	private final CircuitBreaker circuitBreaker;
+
+	private final MeterRegistry meterRegistry;
+	private final String service;
+
+	public Endpoint(SyncClient client, int ejectAfterFailures, long ejectionTime, MeterRegistry meterRegistry, String service) {
+		this.client = client;
+		this.ejectAfterFailures = ejectAfterFailures;
+		this.ejectionTime = ejectionTime;
+		this.meterRegistry = meterRegistry;
+		this.service = service;
+
+		circuitBreaker = client.getOptions().getBreakerWindowSize() > 0
+				? new CircuitBreaker(client.getHost() + ":" + client.getPort(), client.getOptions(), meterRegistry, service)
+				: null;
+
+		client.setRequestListener(this);
+	}
+
+	/**
+	 * Opens {@code connections} in parallel, the pool is published with the first established connection
+	 * and the others are added to it as they connect.
+	 */
+	public synchronized CompletableFuture<ConnectionPool> connect(int connections,
+	                                                              int maxConnections,
+	                                                              int growThreshold,
+	                                                              long growWriteLatency,
+	                                                              long idleTimeout) {
+		if (poolFuture == null) {
+			poolFuture = new CompletableFuture<>();
+			for (int i = 0; i < connections; i++) {
+				client.connectWithRetryAsync().whenComplete((connection, e) -> {
+					if (e != null) {
+						// shutdown, the pool may already be there with other connections
+						poolFuture.completeExceptionally(e);
+						return;
+					}
+
+					onConnected(connection, connections, maxConnections, growThreshold, growWriteLatency, idleTimeout);
+				});
+			}
+		}
+
+		return poolFuture;
+	}
+
+	private synchronized void onConnected(ClientConnection connection,
+	                                      int connections,
+	                                      int maxConnections,
+	                                      int growThreshold,
+	                                      long growWriteLatency,
+	                                      long idleTimeout) {
+		if (pool == null) {
+			pool = new ConnectionPool(client, connection, connections, maxConnections, growThreshold, growWriteLatency, idleTimeout,
+					meterRegistry, service);
+			poolFuture.complete(pool);
+		} else {
+			pool.add(connection);
+		}
+	}
+
+	/**
+	 * @return true once the first connection of the endpoint is established
+	 */
+	public boolean isConnected() {
+		return pool != null;
+	}
+
+	/**
+	 * @throws RemoteServiceConnectionException if no connection of the endpoint is established yet
+	 */
+	public ConnectionPool getPool() {
+		final ConnectionPool pool = this.pool;
+		if (pool == null) {
+			throw new RemoteServiceConnectionException("Endpoint " + client.getHost() + ":" + client.getPort() + " is not connected yet");
+		}
+
+		return pool;
+	}
+
+	/**
+	 * @throws org.genfork.rpc.exceptions.CircuitBreakerOpenException if the circuit breaker does not let the request through
+	 * @throws RemoteServiceConnectionException if no connection of the endpoint is established yet
+	 */
+	public ClientConnection getConnection() {
+		if (circuitBreaker == null) {
+			return getPool().get();
+		}
+
+		circuitBreaker.acquire();
+
+		boolean acquired = false;
+		try {
+			final ClientConnection connection = getPool().get();
+			acquired = true;
+			return connection;
+		} finally {
+			if (!acquired) {
+				circuitBreaker.release();
+			}
+		}
+	}
+
+	/**
+	 * Never throws, used for the hedged copies of a request.
+	 *
+	 * @return an active connection other than {@code except}, null if there is none or the circuit breaker
+	 * does not let the request through
+	 */
+	public ClientConnection getOtherConnection(ClientConnection except) {
+		final ConnectionPool pool = this.pool;
+		if (pool == null || circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+			return null;
+		}
+
+		final ClientConnection connection = pool.getChannels().getOther(except);
+		if (connection == null && circuitBreaker != null) {
+			circuitBreaker.release();
+		}
+
+		return connection;
+	}
+
+	@Override
+	public boolean isActive() {
+		final ConnectionPool pool = this.pool;
+		if (pool == null || System.currentTimeMillis() < ejectedUntil) {
+			return false;
+		}
+
+		if (circuitBreaker != null && !circuitBreaker.isAvailable()) {
+			return false;
+		}
+
+		for (ClientConnection connection : pool.getChannels().getAll()) {
+			if (connection.isActive()) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public int getOutstanding() {
+		final ConnectionPool pool = this.pool;
+		if (pool == null) {
+			return 0;
+		}
+
+		int outstanding = 0;
+		for (ClientConnection connection : pool.getChannels().getAll()) {
+			outstanding += connection.getOutstanding();
+		}
+
+		return outstanding;
+	}
+
+	@Override
+	public double getLoad() {
+		return (latency + 1) * (getOutstanding() + 1);
+	}
+
+	@Override
+	public void onComplete(long latencyNanos, Throwable cause) {
+		if (circuitBreaker != null) {
+			circuitBreaker.onComplete(cause);
+		}
+
+		final Throwable error = cause instanceof CompletionException ? cause.getCause() : cause;
+		if (error instanceof RequestRejectedException || error instanceof CancellationException) {
+			// not answered by the endpoint
+			return;
+		}
+
+		if (error instanceof RemoteServiceTimeoutException || error instanceof WriteConnectionException
+				|| error instanceof IOException) {
+			if (failures.incrementAndGet() >= ejectAfterFailures && ejectAfterFailures > 0) {
+				failures.set(0);
+				// starts over as a fresh endpoint to receive trial traffic when reintroduced
+				latency = 0;
+				ejectedUntil = System.currentTimeMillis() + ejectionTime;
+				log.warn("Endpoint {}:{} ejected for {} ms", client.getHost(), client.getPort(), ejectionTime);
+			}
+
+			return;
+		}
+
+		failures.set(0);
+		latency += (latencyNanos - latency) * EWMA_ALPHA;
+	}
+
+	@Override
+	public void onDiscarded() {
+		if (circuitBreaker != null) {
+			circuitBreaker.release();
+		}
+	}
+
+	public void close() {
+		final ConnectionPool pool = this.pool;
+		if (pool != null) {
+			pool.close();
+		}
+
+		client.shutdownAsync();
+	}
+}
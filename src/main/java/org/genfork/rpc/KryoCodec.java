@@ -1,37 +1,46 @@
 package org.genfork.rpc;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Registration;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.serializers.JavaSerializer;
 import com.esotericsoftware.kryo.util.Pool;
-import lombok.experimental.UtilityClass;
+import io.netty.buffer.ByteBuf;
 import lombok.extern.slf4j.Slf4j;
+import org.genfork.rpc.codec.ByteBufInput;
+import org.genfork.rpc.codec.ByteBufOutput;
+import org.genfork.rpc.codec.ClassDictionary;
+import org.genfork.rpc.codec.Codec;
+import org.genfork.rpc.codec.Protocol;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 
 import java.io.ByteArrayInputStream;
+import java.util.function.Function;
 
 /**
+ * Default {@link Codec}, also used for the handshake and the outbox records.
+ *
  * @author: GenCloud
  * @date: 2022/03
  */
-@UtilityClass
 @Slf4j
-public class KryoCodec {
-    private final Pool<Kryo> kryoPool;
-    private final Pool<Input> inputPool;
-    private final Pool<Output> outputPool;
+public class KryoCodec implements Codec {
+    public static final String NAME = "kryo";
+
+    public static final KryoCodec INSTANCE = new KryoCodec();
+
+    private static final Pool<Kryo> kryoPool;
+    private static final Pool<Input> inputPool;
+    private static final Pool<Output> outputPool;
+    private static final Pool<ByteBufOutput> byteBufOutputPool;
+    private static final Pool<ByteBufInput> byteBufInputPool;
 
     static {
         kryoPool = new Pool<>(true, false, 1024) {
             @Override
             protected Kryo create() {
-                final Kryo kryo = new Kryo();
-                kryo.setInstantiatorStrategy(new StdInstantiatorStrategy());
-                kryo.setRegistrationRequired(false);
-                kryo.setReferences(false);
-                kryo.addDefaultSerializer(Throwable.class, new JavaSerializer());
-                return kryo;
+                return newKryo();
             }
         };
 
@@ -48,9 +57,50 @@ public class KryoCodec {
                 return new Output(8192, -1);
             }
         };
+
+        byteBufOutputPool = new Pool<>(true, false, 512) {
+            @Override
+            protected ByteBufOutput create() {
+                return new ByteBufOutput();
+            }
+        };
+
+        byteBufInputPool = new Pool<>(true, false, 512) {
+            @Override
+            protected ByteBufInput create() {
+                return new ByteBufInput();
+            }
+        };
+    }
+
+    private KryoCodec() {
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void encode(Protocol protocol, ByteBuf out, Object value) {
+        write(protocol.getDictionary(), out, value);
+    }
+
+    @Override
+    public <T> T decode(Protocol protocol, ByteBuf in, Class<T> type) {
+        return read(protocol.getDictionary(), in, type);
+    }
+
+    public static Kryo newKryo() {
+        final Kryo kryo = new Kryo();
+        kryo.setInstantiatorStrategy(new StdInstantiatorStrategy());
+        kryo.setRegistrationRequired(false);
+        kryo.setReferences(false);
+        kryo.addDefaultSerializer(Throwable.class, new JavaSerializer());
+        return kryo;
     }
 
-    public <T> byte[] write(T in) {
+    public static <T> byte[] write(T in) {
         final Kryo kryo = kryoPool.obtain();
         final Output output = outputPool.obtain();
 
@@ -67,7 +117,24 @@ public class KryoCodec {
         }
     }
 
-    public <T> T read(byte[] value, Class<T> type) {
+    public static <T> void write(ClassDictionary dictionary, ByteBuf out, T in) {
+        final Pool<Kryo> pool = dictionary != null ? dictionary.getKryoPool() : kryoPool;
+        final Kryo kryo = pool.obtain();
+        final ByteBufOutput output = byteBufOutputPool.obtain();
+
+        try {
+            output.setByteBuf(out);
+            kryo.writeClassAndObject(output, in);
+            output.flush();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.free(kryo);
+            byteBufOutputPool.free(output);
+        }
+    }
+
+    public static <T> T read(byte[] value, Class<T> type) {
         final Kryo kryo = kryoPool.obtain();
         final Input input = inputPool.obtain();
         try {
@@ -80,4 +147,70 @@ public class KryoCodec {
             inputPool.free(input);
         }
     }
+
+    public static <T> T read(ClassDictionary dictionary, ByteBuf in, Class<T> type) {
+        final Pool<Kryo> pool = dictionary != null ? dictionary.getKryoPool() : kryoPool;
+        final Kryo kryo = pool.obtain();
+        final ByteBufInput input = byteBufInputPool.obtain();
+        try {
+            input.setByteBuf(in);
+
+            final Object object = kryo.readClassAndObject(input);
+            return type.cast(object);
+        } finally {
+            input.release();
+            pool.free(kryo);
+            byteBufInputPool.free(input);
+        }
+    }
+
+    /**
+     * Writes the fields of {@code body} under the class name of {@code type}, the peer reads it as {@code type}.
+     */
+    public static void writeAs(ByteBuf out, Class<?> type, Object body) {
+        final Kryo kryo = kryoPool.obtain();
+        final ByteBufOutput output = byteBufOutputPool.obtain();
+
+        // class and body are one object graph, class names are numbered across both
+        kryo.setAutoReset(false);
+        try {
+            output.setByteBuf(out);
+            kryo.writeClass(output, type);
+            kryo.writeObject(output, body);
+            output.flush();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            kryo.reset();
+            kryo.setAutoReset(true);
+            kryoPool.free(kryo);
+            byteBufOutputPool.free(output);
+        }
+    }
+
+    /**
+     * Reads the object written by {@link #writeAs} or {@link #write(ClassDictionary, ByteBuf, Object)}
+     * into the body class mapped from its class name.
+     */
+    public static <T> T readAs(ByteBuf in, Function<Class<?>, Class<? extends T>> bodyType) {
+        final Kryo kryo = kryoPool.obtain();
+        final ByteBufInput input = byteBufInputPool.obtain();
+        kryo.setAutoReset(false);
+        try {
+            input.setByteBuf(in);
+
+            final Registration registration = kryo.readClass(input);
+            if (registration == null) {
+                return null;
+            }
+
+            return kryo.readObject(input, bodyType.apply(registration.getType()));
+        } finally {
+            kryo.reset();
+            kryo.setAutoReset(true);
+            input.release();
+            kryoPool.free(kryo);
+            byteBufInputPool.free(input);
+        }
+    }
 }
@@ -1,5 +1,9 @@
 package org.genfork.rpc;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
@@ -39,8 +43,12 @@ import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
 
 /**
  * @author: GenCloud
@@ -56,35 +64,56 @@ public class SyncClient {
 	private final ChannelGroup channels;
 	@Getter
 	private final EventLoopGroup eventLoopGroup;
+	@Getter
 	private final String host;
+	@Getter
 	private final int port;
 	@Getter
 	private final SyncServiceOptions options;
+	@Getter
+	private final MeterRegistry meterRegistry;
+	private final Counter rejectedRequests;
+	private final Timer heartbeatRtt;
+	private final Counter heartbeatTimeouts;
 
 	@Getter
 	@Setter
 	private String login, password;
 
+	@Getter
+	@Setter
+	private volatile RequestListener requestListener;
+
 	private final AtomicBoolean shutdown = new AtomicBoolean();
 
+	private static final long INITIAL_BACKOFF = 1000, MAX_BACKOFF = 15000;
+	private static final double BACKOFF_MULTIPLIER = 1.1;
+
 	private final RetryTemplate retryTemplate = new RetryTemplateBuilder()
 			.customPolicy(new AlwaysRetryPolicy())
-			.exponentialBackoff(1000, 1.1, 15000, true)
+			.exponentialBackoff(INITIAL_BACKOFF, BACKOFF_MULTIPLIER, MAX_BACKOFF, true)
 			.build();
 
 	public static SyncClient create(String host, int port, EventLoopGroup eventLoopGroup) {
-		return new SyncClient(host, port, eventLoopGroup, SyncServiceOptions.defaults());
+		return new SyncClient(host, port, eventLoopGroup, SyncServiceOptions.defaults(), null, null);
 	}
 
 	public static SyncClient create(String host, int port, EventLoopGroup eventLoopGroup, SyncServiceOptions options) {
-		return new SyncClient(host, port, eventLoopGroup, options);
+		return new SyncClient(host, port, eventLoopGroup, options, null, null);
 	}
 
-	private SyncClient(String host, int port, EventLoopGroup eventLoopGroup, SyncServiceOptions options) {
+	public static SyncClient create(String host, int port, EventLoopGroup eventLoopGroup, SyncServiceOptions options,
+	                                MeterRegistry meterRegistry, String service) {
+		return new SyncClient(host, port, eventLoopGroup, options, meterRegistry, service);
+	}
+
+	private SyncClient(String host, int port, EventLoopGroup eventLoopGroup, SyncServiceOptions options,
+	                   MeterRegistry meterRegistry, String service) {
 		this.host = host;
 		this.port = port;
 		this.eventLoopGroup = eventLoopGroup;
 		this.options = options;
+		this.meterRegistry = meterRegistry;
 
 		channels = new DefaultChannelGroup(eventLoopGroup.next());
 
@@ -98,6 +127,65 @@ public class SyncClient {
 		}
 
 		bootstrap = createBootstrap(eventLoopGroup, channelClass);
+
+		if (meterRegistry != null) {
+			final String remote = host + ":" + port;
+			Gauge.builder("sync-client-in-flight-requests", this, v -> v.sumConnections(ClientConnection::getInFlight))
+					.tag("service", service)
+					.tag("remote", remote)
+					.register(meterRegistry);
+			Gauge.builder("sync-client-queued-requests", this, v -> v.sumConnections(ClientConnection::getQueued))
+					.tag("service", service)
+					.tag("remote", remote)
+					.register(meterRegistry);
+			rejectedRequests = Counter.builder("sync-client-rejected-requests")
+					.tag("service", service)
+					.tag("remote", remote)
+					.register(meterRegistry);
+			heartbeatRtt = Timer.builder("sync-client-heartbeat-rtt")
+					.tag("service", service)
+					.tag("remote", remote)
+					.register(meterRegistry);
+			heartbeatTimeouts = Counter.builder("sync-client-heartbeat-timeouts")
+					.description("Connections closed after missed heartbeats")
+					.tag("service", service)
+					.tag("remote", remote)
+					.register(meterRegistry);
+		} else {
+			rejectedRequests = null;
+			heartbeatRtt = null;
+			heartbeatTimeouts = null;
+		}
+	}
+
+	private int sumConnections(ToIntFunction<ClientConnection> value) {
+		int sum = 0;
+		for (Channel channel : channels) {
+			final ClientConnection connection = ClientConnection.getFrom(channel);
+			if (connection != null) {
+				sum += value.applyAsInt(connection);
+			}
+		}
+
+		return sum;
+	}
+
+	void onRejected(int requests) {
+		if (rejectedRequests != null) {
+			rejectedRequests.increment(requests);
+		}
+	}
+
+	public void onHeartbeat(long rttNanos) {
+		if (heartbeatRtt != null) {
+			heartbeatRtt.record(rttNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	public void onHeartbeatTimeout() {
+		if (heartbeatTimeouts != null) {
+			heartbeatTimeouts.increment();
+		}
 	}
 
 	private Bootstrap createBootstrap(EventLoopGroup eventLoopGroup, Class<? extends SocketChannel> channelClass) {
@@ -119,11 +207,20 @@ public class SyncClient {
 		bootstrap
 				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000)
 				.option(ChannelOption.AUTO_READ, true)
-				.option(ChannelOption.SO_SNDBUF, 4096)
-				.option(ChannelOption.SO_RCVBUF, 4096)
 				.option(ChannelOption.TCP_NODELAY, true)
 				.option(ChannelOption.SO_KEEPALIVE, true)
+				.option(ChannelOption.WRITE_BUFFER_WATER_MARK,
+						new WriteBufferWaterMark(options.getWriteBufferLowWaterMark(), options.getWriteBufferHighWaterMark()))
 				.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+
+		if (options.getSocketSendBuffer() > 0) {
+			bootstrap.option(ChannelOption.SO_SNDBUF, options.getSocketSendBuffer());
+		}
+
+		if (options.getSocketReceiveBuffer() > 0) {
+			bootstrap.option(ChannelOption.SO_RCVBUF, options.getSocketReceiveBuffer());
+		}
+
 		return bootstrap;
 	}
 
@@ -192,7 +289,51 @@ public class SyncClient {
 		}
 	}
 
-	private CompletableFuture<ClientConnection> connectAsync() {
+	/**
+	 * Connects without blocking, failed attempts are retried with the backoff of {@link #connect()}
+	 * until the connection is established, authentication is refused or the client is shut down.
+	 */
+	public CompletableFuture<ClientConnection> connectWithRetryAsync() {
+		final CompletableFuture<ClientConnection> promise = new CompletableFuture<>();
+		connectWithRetry(promise, INITIAL_BACKOFF);
+		return promise;
+	}
+
+	private void connectWithRetry(CompletableFuture<ClientConnection> promise, long backoff) {
+		if (shutdown.get() || eventLoopGroup.isShuttingDown()) {
+			promise.completeExceptionally(new RemoteServiceConnectionException("Client is shutdown"));
+			return;
+		}
+
+		connectAsync().whenComplete((connection, e) -> {
+			if (e == null) {
+				if (!promise.complete(connection)) {
+					connection.closeAsync();
+				}
+
+				return;
+			}
+
+			final Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+			if (cause instanceof AuthenticationException) {
+				log.error("Unauthorized.", cause);
+				promise.completeExceptionally(cause);
+				return;
+			}
+
+			final long delay = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+			log.debug("Unable to connect to {}:{}, next attempt in {} ms", host, port, delay);
+
+			try {
+				eventLoopGroup.schedule(() -> connectWithRetry(promise, Math.min(MAX_BACKOFF, (long) (backoff * BACKOFF_MULTIPLIER))),
+						delay, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException ex) {
+				promise.completeExceptionally(new RemoteServiceConnectionException("Client is shutdown"));
+			}
+		});
+	}
+
+	public CompletableFuture<ClientConnection> connectAsync() {
 		final CompletableFuture<InetSocketAddress> addrFuture = resolveAddr();
 
 		return addrFuture
@@ -289,4 +430,18 @@ public class SyncClient {
 	public boolean isShutdown() {
 		return shutdown.get();
 	}
+
+	public interface RequestListener {
+		/**
+		 * Called on completion of every request submitted to the connections of the client,
+		 * including the requests rejected or expired before they are written. A batch is reported once.
+		 */
+		void onComplete(long latencyNanos, Throwable cause);
+
+		/**
+		 * Called for the request given up before it is submitted to a connection.
+		 */
+		default void onDiscarded() {
+		}
+	}
 }
@@ -28,6 +28,7 @@ public class SyncServer {
 	private final String login, password;
 	private final String host;
 	private final int port;
+	private final SyncServiceOptions options;
 	private final LockRegistry lockRegistry;
 	private final MeterRegistry meterRegistry;
 	private final Class<? extends ServerChannel> channelClass;
@@ -36,11 +37,12 @@ public class SyncServer {
 
 	private final AtomicBoolean initialized = new AtomicBoolean(false);
 
-	public SyncServer(Transport transport, String login, String password, String host, int port, LockRegistry lockRegistry, MeterRegistry meterRegistry) {
+	public SyncServer(Transport transport, String login, String password, String host, int port, SyncServiceOptions options, LockRegistry lockRegistry, MeterRegistry meterRegistry) {
 		this.login = login;
 		this.password = password;
 		this.host = host;
 		this.port = port;
+		this.options = options;
 		this.lockRegistry = lockRegistry;
 		this.meterRegistry = meterRegistry;
 
@@ -64,14 +66,22 @@ public class SyncServer {
 			final ServerBootstrap serverBootstrap = new ServerBootstrap()
 					.group(bossGroup, workerGroup)
 					.channel(channelClass)
-					.childHandler(new ServerChannelInitializer(lockRegistry, meterRegistry, login, password))
+					.childHandler(new ServerChannelInitializer(lockRegistry, meterRegistry, login, password, options))
 					.childOption(ChannelOption.AUTO_READ, true)
-					.childOption(ChannelOption.SO_SNDBUF, 4096)
-					.childOption(ChannelOption.SO_RCVBUF, 4096)
 					.childOption(ChannelOption.TCP_NODELAY, true)
 					.childOption(ChannelOption.SO_KEEPALIVE, true)
+					.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+							new WriteBufferWaterMark(options.getWriteBufferLowWaterMark(), options.getWriteBufferHighWaterMark()))
 					.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
 
+			if (options.getSocketSendBuffer() > 0) {
+				serverBootstrap.childOption(ChannelOption.SO_SNDBUF, options.getSocketSendBuffer());
+			}
+
+			if (options.getSocketReceiveBuffer() > 0) {
+				serverBootstrap.childOption(ChannelOption.SO_RCVBUF, options.getSocketReceiveBuffer());
+			}
+
 			channelFuture = serverBootstrap.bind(host, port).sync();
 			log.info("Start sync server on {}:{}", host, port);
 		} catch (Exception e) {
@@ -33,13 +33,24 @@ public class SyncServiceMethodMetadata {
 
 		final MethodMetadata metadata = classMap.computeIfAbsent(methodName, v -> {
 			try {
-				final Method method = findMethod(methodName, args, serviceClass);
-				return new MethodMetadata(meterRegistry, method, LOOKUP.unreflect(method));
-			} catch (NoSuchMethodException | IllegalAccessException e) {
+				return createMetadata(meterRegistry, findMethod(methodName, args, serviceClass));
+			} catch (NoSuchMethodException e) {
 				throw new ServiceRemoteException(e.getMessage());
 			}
 		});
 
+		return invoke(meterRegistry, service, metadata, args);
+	}
+
+	public MethodMetadata createMetadata(MeterRegistry meterRegistry, Method method) {
+		try {
+			return new MethodMetadata(meterRegistry, method, LOOKUP.unreflect(method));
+		} catch (IllegalAccessException e) {
+			throw new ServiceRemoteException(e.getMessage());
+		}
+	}
+
+	public Object invoke(MeterRegistry meterRegistry, Object service, MethodMetadata metadata, Object[] args) throws Throwable {
 		if (args == null || args.length == 0) {
 			return doWithMeterIfPresent(
 					meterRegistry,
@@ -1,6 +1,10 @@
 package org.genfork.rpc;
 
 import lombok.Getter;
+import org.genfork.rpc.codec.Codec;
+import org.genfork.rpc.codec.Compression;
+import org.genfork.rpc.handlers.FlushMode;
+import org.genfork.rpc.codec.Protocol;
 
 /**
  * @author: GenCloud
@@ -8,6 +12,34 @@ import lombok.Getter;
  */
 public class SyncServiceOptions {
 	@Getter private Long executionTimeoutInMillis = 60_000L;
+	@Getter private int maxFrameLength = Protocol.DEFAULT_MAX_FRAME_LENGTH;
+	@Getter private Compression compression = Compression.NONE;
+	@Getter private int compressionThreshold = 1024;
+	@Getter private int maxChunkStreams = 16;
+	@Getter private long maxChunkBufferedBytes = 4L * Protocol.DEFAULT_MAX_FRAME_LENGTH;
+	@Getter private Codec codec = KryoCodec.INSTANCE;
+	@Getter private FlushMode flushMode = FlushMode.READ_BATCH;
+	@Getter private int flushMaxMessages = 64;
+	@Getter private long flushWindowMicros = 100;
+	@Getter private int maxInFlight;
+	@Getter private int maxQueued;
+	@Getter private int writeBufferLowWaterMark = 32 * 1024;
+	@Getter private int writeBufferHighWaterMark = 64 * 1024;
+	@Getter private int socketSendBuffer;
+	@Getter private int socketReceiveBuffer;
+	@Getter private int reconnectBufferRequests;
+	@Getter private long reconnectBufferBytes;
+	@Getter private long reconnectBufferMinRemaining;
+	@Getter private int breakerWindowSize;
+	@Getter private int breakerMinimumCalls = 20;
+	@Getter private int breakerFailureRate = 50;
+	@Getter private int breakerTimeoutRate = 30;
+	@Getter private int breakerConsecutiveFailures = 10;
+	@Getter private long breakerOpenDuration = 10_000;
+	@Getter private int breakerHalfOpenTrials = 3;
+	@Getter private long breakerHalfOpenTimeout = 10_000;
+	@Getter private long heartbeatInterval;
+	@Getter private int heartbeatMissThreshold = 3;
 
 	private SyncServiceOptions() {
 	}
@@ -26,6 +58,110 @@ public class SyncServiceOptions {
 		return this;
 	}
 
+	public SyncServiceOptions maxFrameLength(int maxFrameLength) {
+		this.maxFrameLength = maxFrameLength;
+		return this;
+	}
+
+	public SyncServiceOptions compression(Compression compression, int compressionThreshold) {
+		this.compression = compression;
+		this.compressionThreshold = compressionThreshold;
+		return this;
+	}
+
+	/**
+	 * Limits the chunked messages of the peer being reassembled at once, by their number and by the bytes held over all of them.
+	 * The peer exceeding a limit is disconnected.
+	 */
+	public SyncServiceOptions chunkStreams(int maxChunkStreams, long maxChunkBufferedBytes) {
+		this.maxChunkStreams = maxChunkStreams;
+		this.maxChunkBufferedBytes = maxChunkBufferedBytes;
+		return this;
+	}
+
+	public SyncServiceOptions codec(Codec codec) {
+		this.codec = codec;
+		return this;
+	}
+
+	public SyncServiceOptions flush(FlushMode flushMode, int flushMaxMessages, long flushWindowMicros) {
+		this.flushMode = flushMode;
+		this.flushMaxMessages = flushMaxMessages;
+		this.flushWindowMicros = flushWindowMicros;
+		return this;
+	}
+
+	/**
+	 * Limits requests in flight per connection, 0 is unlimited. Requests over the limit wait in a queue
+	 * of {@code maxQueued} requests, with 0 they are rejected at once.
+	 */
+	public SyncServiceOptions maxInFlight(int maxInFlight, int maxQueued) {
+		this.maxInFlight = maxInFlight;
+		this.maxQueued = maxQueued;
+		return this;
+	}
+
+	public SyncServiceOptions writeBufferWaterMark(int writeBufferLowWaterMark, int writeBufferHighWaterMark) {
+		this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+		this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+		return this;
+	}
+
+	/**
+	 * Sizes of SO_SNDBUF and SO_RCVBUF, 0 keeps the system default.
+	 */
+	public SyncServiceOptions socketBuffers(int socketSendBuffer, int socketReceiveBuffer) {
+		this.socketSendBuffer = socketSendBuffer;
+		this.socketReceiveBuffer = socketReceiveBuffer;
+		return this;
+	}
+
+	/**
+	 * Holds up to {@code requests} new requests of approximately {@code bytes} while the connection is reconnecting
+	 * instead of failing them, requests with less than {@code minRemainingMillis} to the deadline are rejected.
+	 * 0 requests disables the buffer.
+	 */
+	public SyncServiceOptions reconnectBuffer(int requests, long bytes, long minRemainingMillis) {
+		this.reconnectBufferRequests = requests;
+		this.reconnectBufferBytes = bytes;
+		this.reconnectBufferMinRemaining = minRemainingMillis;
+		return this;
+	}
+
+	/**
+	 * Circuit breaker of every endpoint over the last {@code windowSize} requests, 0 disables it.
+	 * Rates are percents of the window, they are evaluated once the window has {@code minimumCalls} requests.
+	 * A half open breaker whose trials are not concluded within {@code halfOpenTimeoutMillis} opens again.
+	 */
+	public SyncServiceOptions circuitBreaker(int windowSize,
+	                                         int minimumCalls,
+	                                         int failureRate,
+	                                         int timeoutRate,
+	                                         int consecutiveFailures,
+	                                         long openDurationMillis,
+	                                         int halfOpenTrials,
+	                                         long halfOpenTimeoutMillis) {
+		this.breakerWindowSize = windowSize;
+		this.breakerMinimumCalls = minimumCalls;
+		this.breakerFailureRate = failureRate;
+		this.breakerTimeoutRate = timeoutRate;
+		this.breakerConsecutiveFailures = consecutiveFailures;
+		this.breakerOpenDuration = openDurationMillis;
+		this.breakerHalfOpenTrials = halfOpenTrials;
+		this.breakerHalfOpenTimeout = halfOpenTimeoutMillis;
+		return this;
+	}
+
+	/**
+	 * Pings every connection each {@code intervalMillis}, a connection which misses {@code missThreshold} pongs
+	 * in a row is closed and reconnected. 0 disables heartbeats.
+	 */
+	public SyncServiceOptions heartbeat(long intervalMillis, int missThreshold) {
+		this.heartbeatInterval = intervalMillis;
+		this.heartbeatMissThreshold = missThreshold;
+		return this;
+	}
+
 	public boolean isResultExpected() {
 		return executionTimeoutInMillis != null;
 	}
@@ -1,8 +1,15 @@
 package org.genfork.rpc;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
 import org.cliffc.high_scale_lib.NonBlockingHashMap;
+import org.genfork.rpc.SyncServiceMethodMetadata.MethodMetadata;
+import org.genfork.rpc.codec.ClassDictionary;
+import org.genfork.rpc.codec.MethodTable;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -15,14 +22,70 @@ public class SyncServiceProvider {
 
 	private final Map<Class<?>, Object> serviceMap = new NonBlockingHashMap<>();
 
+	private final List<BoundMethod> boundMethods = new ArrayList<>();
+	private final List<String> boundMethodKeys = new ArrayList<>();
+
+	private volatile BoundMethod[] methods = new BoundMethod[0];
+
+	@Getter
+	private volatile MethodTable methodTable = MethodTable.EMPTY;
+
 	public Object getService(Class<?> serviceClass) {
 		return serviceMap.get(serviceClass);
 	}
 
+	public BoundMethod getMethod(int methodId) {
+		final BoundMethod[] methods = this.methods;
+		return methodId > 0 && methodId <= methods.length ? methods[methodId - 1] : null;
+	}
+
 	public void bind(Class<?> serviceClass, Object remoteService) {
-		serviceMap.computeIfAbsent(
-				serviceClass,
-				v -> remoteService
-		);
+		ClassDictionary.registerService(serviceClass);
+
+		if (serviceMap.putIfAbsent(serviceClass, remoteService) == null) {
+			bindMethods(serviceClass, remoteService);
+		}
+	}
+
+	private synchronized void bindMethods(Class<?> serviceClass, Object remoteService) {
+		for (Method method : serviceClass.getMethods()) {
+			if (method.getDeclaringClass() == Object.class) {
+				continue;
+			}
+
+			try {
+				final Method target = remoteService.getClass().getMethod(method.getName(), method.getParameterTypes());
+
+				boundMethods.add(new BoundMethod(remoteService, target));
+				boundMethodKeys.add(MethodTable.key(serviceClass, method));
+			} catch (NoSuchMethodException e) {
+				// not dispatched by id, still reachable by name
+			}
+		}
+
+		methods = boundMethods.toArray(BoundMethod[]::new);
+		methodTable = MethodTable.of(boundMethodKeys);
+	}
+
+	public static class BoundMethod {
+		private final Object service;
+		private final Method method;
+
+		private volatile MethodMetadata metadata;
+
+		private BoundMethod(Object service, Method method) {
+			this.service = service;
+			this.method = method;
+		}
+
+		public Object invoke(MeterRegistry meterRegistry, Object[] args) throws Throwable {
+			MethodMetadata metadata = this.metadata;
+			if (metadata == null) {
+				metadata = SyncServiceMethodMetadata.createMetadata(meterRegistry, method);
+				this.metadata = metadata;
+			}
+
+			return SyncServiceMethodMetadata.invoke(meterRegistry, service, metadata, args);
+		}
 	}
 }
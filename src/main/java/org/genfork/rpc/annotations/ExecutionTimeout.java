@@ -0,0 +1,19 @@
+package org.genfork.rpc.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Milliseconds the client waits for the reply of the method, or of every method of the annotated interface,
+ * instead of the timeout of the outbound service. The annotation of the method takes precedence,
+ * a {@link org.genfork.rpc.context.proxy.SyncCallOptions} scope overrides both for a single call.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface ExecutionTimeout {
+	long value();
+}
@@ -0,0 +1,22 @@
+package org.genfork.rpc.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks the method safe to execute more than once. When the reply does not arrive within {@link #hedgeDelay()}
+ * a copy of the request is sent on another connection or endpoint and the first reply is taken,
+ * the number of copies is capped by the hedge budget of the outbound service.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface Idempotent {
+	/**
+	 * Milliseconds before the copy is sent, negative disables hedging.
+	 */
+	long hedgeDelay();
+}
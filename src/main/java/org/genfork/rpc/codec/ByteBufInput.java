@@ -0,0 +1,41 @@
+package org.genfork.rpc.codec;
+
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Kryo input that reads directly from the readable region of a Netty {@link ByteBuf}. The region is read without
+ * copying when the buffer is backed by a single memory region, a composite buffer of several components is merged.
+ * Instances are pooled by {@link org.genfork.rpc.KryoCodec}.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public class ByteBufInput extends ByteBufferInput {
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private ByteBuf byteBuf;
+	private int startIndex;
+
+	public ByteBufInput() {
+		super(EMPTY);
+	}
+
+	public void setByteBuf(ByteBuf byteBuf) {
+		this.byteBuf = byteBuf;
+
+		startIndex = byteBuf.readerIndex();
+		setBuffer(byteBuf.nioBuffer(startIndex, byteBuf.readableBytes()));
+	}
+
+	public void release() {
+		if (byteBuf != null) {
+			byteBuf.readerIndex(startIndex + position);
+		}
+
+		byteBuf = null;
+		setBuffer(EMPTY);
+	}
+}
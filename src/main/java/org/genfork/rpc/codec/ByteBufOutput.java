@@ -0,0 +1,70 @@
+package org.genfork.rpc.codec;
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.ByteBufferOutput;
+import com.esotericsoftware.kryo.io.KryoBufferOverflowException;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Kryo output that writes directly into the writable region of a Netty {@link ByteBuf}.
+ * The target buffer grows through {@link ByteBuf#ensureWritable(int)}, so no intermediate array is used.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public class ByteBufOutput extends ByteBufferOutput {
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private ByteBuf byteBuf;
+	private int startIndex;
+
+	public ByteBufOutput() {
+		super(0, 0);
+	}
+
+	public void setByteBuf(ByteBuf byteBuf) {
+		if (byteBuf.nioBufferCount() != 1) {
+			throw new IllegalArgumentException("Composite buffers are not supported");
+		}
+
+		this.byteBuf = byteBuf;
+
+		startIndex = byteBuf.writerIndex();
+		setBuffer(byteBuf.nioBuffer(startIndex, byteBuf.writableBytes()), byteBuf.maxCapacity() - startIndex);
+	}
+
+	@Override
+	protected boolean require(int required) throws KryoException {
+		if (capacity - position >= required) {
+			return false;
+		}
+
+		if (byteBuf == null || required > maxCapacity - position) {
+			throw new KryoBufferOverflowException("Buffer overflow. Available: " + (maxCapacity - position) + ", required: " + required);
+		}
+
+		byteBuf.ensureWritable(position + required);
+
+		final ByteBuffer nioBuffer = byteBuf.nioBuffer(startIndex, byteBuf.capacity() - startIndex);
+		nioBuffer.position(position);
+
+		byteBuffer = nioBuffer;
+		capacity = nioBuffer.capacity();
+		return true;
+	}
+
+	@Override
+	public void flush() throws KryoException {
+		if (byteBuf != null) {
+			byteBuf.writerIndex(startIndex + position);
+		}
+	}
+
+	@Override
+	public void reset() {
+		byteBuf = null;
+		setBuffer(EMPTY, 0);
+	}
+}
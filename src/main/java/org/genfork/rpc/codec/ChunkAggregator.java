@@ -0,0 +1,136 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Reassembles frames split by {@link ChunkWriter}. Chunks of different streams may interleave, the chunks of every stream
+ * are held in its own composite buffer without copying while they arrive. Once the last chunk arrives the message
+ * is copied once into a contiguous pooled buffer, the codecs read a single memory region, and passed on.
+ * The remaining time of a chunked request is counted from the arrival of its first chunk.
+ * Frames that are not chunks are passed through as is.
+ * A peer exceeding {@code maxStreams} open streams or {@code maxBufferedBytes} held over all of them is disconnected.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Slf4j
+public class ChunkAggregator extends MessageToMessageDecoder<ByteBuf> {
+	private final IntObjectMap<Stream> streams = new IntObjectHashMap<>();
+
+	private final int maxStreams;
+	private final long maxBufferedBytes;
+
+	private long bufferedBytes;
+
+	public ChunkAggregator(int maxStreams, long maxBufferedBytes) {
+		this.maxStreams = maxStreams;
+		this.maxBufferedBytes = maxBufferedBytes;
+	}
+
+	@Override
+	protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+		if (msg.readableBytes() < Frame.HEADER_LENGTH || msg.getUnsignedByte(msg.readerIndex()) != Frame.CHUNK) {
+			out.add(msg.retain());
+			return;
+		}
+
+		if (!ctx.channel().isOpen()) {
+			// rest of the read after an overflow
+			return;
+		}
+
+		msg.skipBytes(1);
+
+		final boolean last = (msg.readByte() & Frame.LAST_CHUNK) != 0;
+		final int streamId = (int) msg.readLongLE();
+		msg.skipBytes(8);
+
+		Stream stream = streams.get(streamId);
+		if (stream == null) {
+			if (streams.size() >= maxStreams) {
+				overflow(ctx, "Too many open chunk streams: " + streams.size());
+				return;
+			}
+
+			stream = new Stream(ctx.alloc().compositeBuffer(Integer.MAX_VALUE), System.currentTimeMillis());
+			streams.put(streamId, stream);
+		}
+
+		final CompositeByteBuf message = stream.message();
+
+		final int maxLength = Protocol.get(ctx.channel()).getMaxFrameLength();
+		if ((long) message.readableBytes() + msg.readableBytes() > maxLength) {
+			overflow(ctx, "Message length exceeds " + maxLength);
+			return;
+		}
+
+		if (bufferedBytes + msg.readableBytes() > maxBufferedBytes) {
+			overflow(ctx, "Buffered chunks exceed " + maxBufferedBytes + " bytes");
+			return;
+		}
+
+		bufferedBytes += msg.readableBytes();
+		message.addComponent(true, msg.retain());
+
+		if (last) {
+			streams.remove(streamId);
+			bufferedBytes -= message.readableBytes();
+
+			final ByteBuf frame = contiguous(ctx, message);
+			Frame.toLocalDeadline(frame, Protocol.get(ctx.channel()), stream.receiveTime());
+			out.add(frame);
+		}
+	}
+
+	private static ByteBuf contiguous(ChannelHandlerContext ctx, CompositeByteBuf message) {
+		if (message.numComponents() == 1) {
+			return message;
+		}
+
+		try {
+			final ByteBuf frame = ctx.alloc().buffer(message.readableBytes());
+			frame.writeBytes(message);
+			return frame;
+		} finally {
+			message.release();
+		}
+	}
+
+	private void overflow(ChannelHandlerContext ctx, String reason) {
+		log.warn("Closing channel {}: {}", ctx.channel(), reason);
+
+		releaseStreams();
+		ctx.close();
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		releaseStreams();
+		super.channelInactive(ctx);
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) {
+		releaseStreams();
+	}
+
+	private void releaseStreams() {
+		for (Stream stream : streams.values()) {
+			stream.message().release();
+		}
+
+		streams.clear();
+		bufferedBytes = 0;
+	}
+
+	private record Stream(CompositeByteBuf message, long receiveTime) {
+	}
+}
@@ -0,0 +1,116 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Splits encoded frames larger than {@link #CHUNK_SIZE} into {@link Frame#CHUNK} frames when the channel negotiated
+ * {@link Protocol#CHUNKED_FRAMES}. Chunks of pending messages are written round-robin and only while the channel
+ * is writable, small messages bypass the queue, so they are never stuck behind a bulk transfer.
+ * <p>
+ * Chunks carry the original frame without its length field, the stream id is sent in the request id field.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public class ChunkWriter extends ChannelDuplexHandler {
+	public static final int CHUNK_SIZE = 64 * 1024;
+
+	private final Deque<Stream> streams = new ArrayDeque<>();
+	private int nextStreamId;
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+		if (msg instanceof ByteBuf buf && buf.readableBytes() > CHUNK_SIZE) {
+			final Protocol protocol = Protocol.get(ctx.channel());
+			if (protocol.isEnabled(Protocol.CHUNKED_FRAMES)) {
+				buf.skipBytes(Frame.LENGTH_FIELD_LENGTH);
+				streams.add(new Stream(nextStreamId++, buf, promise));
+				return;
+			}
+		}
+
+		ctx.write(msg, promise);
+	}
+
+	@Override
+	public void flush(ChannelHandlerContext ctx) {
+		writeChunks(ctx);
+		ctx.flush();
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		if (!streams.isEmpty() && ctx.channel().isWritable()) {
+			writeChunks(ctx);
+			ctx.flush();
+		}
+
+		super.channelWritabilityChanged(ctx);
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		failStreams(new ClosedChannelException());
+		super.channelInactive(ctx);
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) {
+		failStreams(new ClosedChannelException());
+	}
+
+	private void writeChunks(ChannelHandlerContext ctx) {
+		final Channel channel = ctx.channel();
+		while (!streams.isEmpty() && channel.isWritable()) {
+			final Stream stream = streams.poll();
+			final ByteBuf payload = stream.payload;
+
+			final int length = Math.min(CHUNK_SIZE, payload.readableBytes());
+			final boolean last = length == payload.readableBytes();
+
+			final ByteBuf header = ctx.alloc().buffer(Frame.LENGTH_FIELD_LENGTH + Frame.HEADER_LENGTH);
+			header.writerIndex(Frame.LENGTH_FIELD_LENGTH);
+			Frame.writeHeader(header, Frame.CHUNK, last ? Frame.LAST_CHUNK : 0, stream.id, -1);
+			header.setIntLE(0, header.readableBytes() + length);
+
+			final ByteBuf chunk = ctx.alloc()
+					.compositeBuffer(2)
+					.addComponents(true, header, payload.readRetainedSlice(length));
+
+			if (last) {
+				payload.release();
+				ctx.write(chunk, stream.promise);
+			} else {
+				streams.add(stream);
+				ctx.write(chunk).addListener((ChannelFutureListener) future -> {
+					if (!future.isSuccess() && streams.remove(stream)) {
+						stream.fail(future.cause());
+					}
+				});
+			}
+		}
+	}
+
+	private void failStreams(Throwable cause) {
+		Stream stream;
+		while ((stream = streams.poll()) != null) {
+			stream.fail(cause);
+		}
+	}
+
+	private record Stream(int id, ByteBuf payload, ChannelPromise promise) {
+		private void fail(Throwable cause) {
+			payload.release();
+			promise.tryFailure(cause);
+		}
+	}
+}
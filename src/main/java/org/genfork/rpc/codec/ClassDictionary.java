@@ -0,0 +1,212 @@
+package org.genfork.rpc.codec;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.util.Pool;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.genfork.rpc.KryoCodec;
+import org.genfork.rpc.data.*;
+
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ordered list of class names exchanged during the {@link org.genfork.rpc.data.AuthRequest} handshake.
+ * Both peers register the listed classes in Kryo with the same integer ids, so the names are not written
+ * for every message. Classes missing from the dictionary are still written by name.
+ * <p>
+ * Locally known classes are collected from the bound and connected service interfaces:
+ * method parameters, return types and fields of the transferred types.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Slf4j
+public class ClassDictionary {
+	public static final int FIRST_ID = 64;
+
+	// dictionary travels inside the auth messages, which still use the legacy framing
+	private static final int MAX_LENGTH = 16 * 1024;
+
+	private static final Set<String> LOCAL = new LinkedHashSet<>();
+	private static final Map<List<String>, ClassDictionary> DICTIONARIES = new ConcurrentHashMap<>();
+
+	static {
+		final Class<?>[] defaults = {
+				DefaultRequest.class, DefaultReply.class, LockRequest.class, LockReply.class,
+				LockRequestType.class, LockAcquireType.class, Class.class,
+				Object[].class, String[].class, byte[].class, int[].class, long[].class, double[].class, boolean[].class,
+				ArrayList.class, LinkedList.class, HashMap.class, LinkedHashMap.class, TreeMap.class,
+				HashSet.class, LinkedHashSet.class, TreeSet.class,
+				UUID.class, BigDecimal.class, BigInteger.class, Date.class,
+				Instant.class, Duration.class, LocalDate.class, LocalTime.class, LocalDateTime.class, ZonedDateTime.class
+		};
+
+		for (Class<?> type : defaults) {
+			LOCAL.add(type.getName());
+		}
+	}
+
+	@Getter
+	private final List<String> names;
+
+	@Getter
+	private final Pool<Kryo> kryoPool;
+
+	private ClassDictionary(List<String> names) {
+		this.names = names;
+
+		final Class<?>[] types = resolve(names);
+		kryoPool = new Pool<>(true, false, 1024) {
+			@Override
+			protected Kryo create() {
+				final Kryo kryo = KryoCodec.newKryo();
+				for (int i = 0; i < types.length; i++) {
+					if (types[i] == null) {
+						continue;
+					}
+
+					try {
+						kryo.register(types[i], FIRST_ID + i);
+					} catch (RuntimeException e) {
+						log.debug("Class {} from the dictionary can't be registered", types[i].getName(), e);
+					}
+				}
+
+				return kryo;
+			}
+		};
+	}
+
+	public static ClassDictionary of(List<String> names) {
+		return DICTIONARIES.computeIfAbsent(List.copyOf(names), ClassDictionary::new);
+	}
+
+	public static ClassDictionary local() {
+		synchronized (LOCAL) {
+			return of(limit(LOCAL));
+		}
+	}
+
+	public static void registerService(Class<?> serviceClass) {
+		synchronized (LOCAL) {
+			LOCAL.add(serviceClass.getName());
+
+			for (Method method : serviceClass.getMethods()) {
+				if (method.getDeclaringClass() == Object.class) {
+					continue;
+				}
+
+				for (Type parameterType : method.getGenericParameterTypes()) {
+					collect(parameterType);
+				}
+
+				collect(method.getGenericReturnType());
+			}
+		}
+	}
+
+	public ClassDictionary merge(ClassDictionary remote) {
+		final Set<String> merged = new LinkedHashSet<>(remote.names);
+		merged.addAll(names);
+		return of(limit(merged));
+	}
+
+	public void writeTo(ByteBuf out) {
+		out.writeIntLE(names.size());
+		for (String name : names) {
+			final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			out.writeShortLE(bytes.length);
+			out.writeBytes(bytes);
+		}
+	}
+
+	public static ClassDictionary readFrom(ByteBuf in) {
+		final int size = in.readIntLE();
+		if (size < 0 || size > in.readableBytes() / 2) {
+			throw new CorruptedFrameException("Invalid class dictionary size: " + size);
+		}
+
+		final List<String> names = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			final int length = in.readUnsignedShortLE();
+			names.add(in.readCharSequence(length, StandardCharsets.UTF_8).toString());
+		}
+
+		return of(names);
+	}
+
+	private static void collect(Type type) {
+		if (type instanceof Class<?> cls) {
+			if (cls.isArray()) {
+				collect(cls.getComponentType());
+			} else if (!cls.isPrimitive() && !isPlatformClass(cls) && LOCAL.add(cls.getName())) {
+				for (Class<?> current = cls; current != null && current != Object.class; current = current.getSuperclass()) {
+					for (Field field : current.getDeclaredFields()) {
+						final int modifiers = field.getModifiers();
+						if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+							collect(field.getGenericType());
+						}
+					}
+				}
+			}
+		} else if (type instanceof ParameterizedType parameterizedType) {
+			collect(parameterizedType.getRawType());
+
+			for (Type argument : parameterizedType.getActualTypeArguments()) {
+				collect(argument);
+			}
+		} else if (type instanceof GenericArrayType arrayType) {
+			collect(arrayType.getGenericComponentType());
+		} else if (type instanceof WildcardType wildcardType) {
+			for (Type bound : wildcardType.getUpperBounds()) {
+				collect(bound);
+			}
+		}
+	}
+
+	// platform classes are registered from the fixed defaults only, their internals are not accessible for Kryo
+	private static boolean isPlatformClass(Class<?> cls) {
+		final String name = cls.getName();
+		return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("sun.");
+	}
+
+	private static List<String> limit(Collection<String> names) {
+		final List<String> result = new ArrayList<>(names.size());
+
+		int length = 4;
+		for (String name : names) {
+			length += 2 + name.getBytes(StandardCharsets.UTF_8).length;
+			if (length > MAX_LENGTH) {
+				log.debug("Class dictionary is truncated to {} classes", result.size());
+				break;
+			}
+
+			result.add(name);
+		}
+
+		return result;
+	}
+
+	private static Class<?>[] resolve(List<String> names) {
+		final ClassLoader classLoader = KryoCodec.class.getClassLoader();
+
+		final Class<?>[] types = new Class<?>[names.size()];
+		for (int i = 0; i < types.length; i++) {
+			try {
+				types[i] = Class.forName(names.get(i), false, classLoader);
+			} catch (ClassNotFoundException | LinkageError e) {
+				log.debug("Class {} from the dictionary is not available locally", names.get(i));
+			}
+		}
+
+		return types;
+	}
+}
@@ -0,0 +1,24 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Serializer of the message bodies. The codec of a channel is negotiated with {@link Protocol#CODEC}:
+ * the client proposes the codec of the outbound service, the server accepts it when the same codec is set on inbound,
+ * otherwise both sides keep {@link org.genfork.rpc.KryoCodec}. The handshake itself is always serialized with Kryo.
+ * <p>
+ * Additional codecs are discovered with {@link java.util.ServiceLoader}, see {@link Codecs}.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public interface Codec {
+	/**
+	 * Name of the codec, used in the configuration and in the handshake.
+	 */
+	String getName();
+
+	void encode(Protocol protocol, ByteBuf out, Object value);
+
+	<T> T decode(Protocol protocol, ByteBuf in, Class<T> type);
+}
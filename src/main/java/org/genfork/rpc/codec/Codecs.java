@@ -0,0 +1,48 @@
+package org.genfork.rpc.codec;
+
+import lombok.experimental.UtilityClass;
+import org.genfork.rpc.KryoCodec;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the available {@link Codec} implementations: {@link KryoCodec} and the codecs
+ * declared in {@code META-INF/services/org.genfork.rpc.codec.Codec}.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@UtilityClass
+public class Codecs {
+	private final Map<String, Codec> codecs = new ConcurrentHashMap<>();
+
+	static {
+		codecs.put(KryoCodec.NAME, KryoCodec.INSTANCE);
+
+		for (Codec codec : ServiceLoader.load(Codec.class, Codecs.class.getClassLoader())) {
+			codecs.putIfAbsent(codec.getName(), codec);
+		}
+	}
+
+	public void register(Codec codec) {
+		codecs.put(codec.getName(), codec);
+	}
+
+	/**
+	 * @return codec with the given name or {@code null} if there is no such codec
+	 */
+	public Codec find(String name) {
+		return name != null ? codecs.get(name) : null;
+	}
+
+	public Codec get(String name) {
+		final Codec codec = find(name);
+		if (codec == null) {
+			throw new IllegalArgumentException("Unknown codec: " + name);
+		}
+
+		return codec;
+	}
+}
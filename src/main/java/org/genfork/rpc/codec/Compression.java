@@ -0,0 +1,74 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compression algorithm of the outgoing messages. Decompression is negotiated with {@link Protocol#COMPRESSION},
+ * the algorithm and the minimal message size are chosen by the sending side.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public enum Compression {
+	NONE,
+	LZ4;
+
+	private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+	// input comes from the network, the safe decompressor never reads or writes past the given bounds
+	private static final LZ4SafeDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+
+	public static int maxCompressedLength(int length) {
+		return COMPRESSOR.maxCompressedLength(length);
+	}
+
+	/**
+	 * Compresses readable bytes of {@code in} into {@code out}, returns the compressed length.
+	 */
+	public static int compress(ByteBuf in, ByteBuf out) {
+		final int length = in.readableBytes();
+		final int maxLength = COMPRESSOR.maxCompressedLength(length);
+		out.ensureWritable(maxLength);
+
+		final ByteBuffer source = in.nioBuffer(in.readerIndex(), length);
+		final ByteBuffer target = out.nioBuffer(out.writerIndex(), maxLength);
+
+		final int compressedLength = COMPRESSOR.compress(source, source.position(), length, target, target.position(), maxLength);
+		in.skipBytes(length);
+		out.writerIndex(out.writerIndex() + compressedLength);
+		return compressedLength;
+	}
+
+	/**
+	 * Decompresses all readable bytes of {@code in} into {@code out}, {@code length} is the declared original length.
+	 *
+	 * @throws CorruptedFrameException if the input is malformed or does not decompress to exactly {@code length} bytes
+	 */
+	public static void decompress(ByteBuf in, ByteBuf out, int length) {
+		out.ensureWritable(length);
+
+		final int compressedLength = in.readableBytes();
+		final ByteBuffer source = in.nioBuffer(in.readerIndex(), compressedLength);
+		final ByteBuffer target = out.nioBuffer(out.writerIndex(), length);
+
+		final int decompressedLength;
+		try {
+			decompressedLength = DECOMPRESSOR.decompress(source, source.position(), compressedLength, target, target.position(), length);
+		} catch (LZ4Exception e) {
+			throw new CorruptedFrameException("Malformed compressed message", e);
+		}
+
+		if (decompressedLength != length) {
+			throw new CorruptedFrameException("Compressed message length mismatch, declared: " + length + ", actual: " + decompressedLength);
+		}
+
+		in.skipBytes(compressedLength);
+		out.writerIndex(out.writerIndex() + length);
+	}
+}
@@ -0,0 +1,80 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Binary layout of the frames after the {@link Protocol} handshake, before it the channel uses the {@link Legacy} frames.
+ * Every frame starts with the length field (int) which includes itself, followed by the fixed header:
+ * type (byte), flags (byte), request id (long), deadline (long, -1 if none).
+ * With {@link Protocol#RELATIVE_DEADLINES} the deadline of the requests is the remaining time in milliseconds,
+ * so the clocks of the peers do not have to be in sync.
+ * Type specific fields and the codec body follow the header.
+ * <p>
+ * {@link #INDEXED} requests carry the method id (unsigned short) right after the header,
+ * {@link #CHUNK} frames carry a part of a larger frame and use the request id field as the stream id,
+ * {@link #CANCEL} frames consist of the header only and carry the id of the abandoned request,
+ * {@link #PING} and {@link #PONG} frames consist of the header only, the pong echoes the request id of the ping,
+ * {@link #NO_RESULT} marks requests the client does not wait a reply for,
+ * with {@link #COMPRESSED} the body is replaced by its original length (int) and the LZ4 block.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public final class Frame {
+	public static final short DEFAULT = 0;
+	public static final short LOCK = 1;
+	public static final short AUTH = 2;
+	public static final short CHUNK = 3;
+	public static final short INDEXED = 4;
+	public static final short BATCH = 5;
+	public static final short CANCEL = 6;
+	public static final short PING = 7;
+	public static final short PONG = 8;
+
+	public static final int COMPRESSED = 1;
+	public static final int LAST_CHUNK = 2;
+	public static final int NO_RESULT = 4;
+
+	public static final int LENGTH_FIELD_LENGTH = 4;
+	public static final int HEADER_LENGTH = 18;
+
+	private Frame() {
+	}
+
+	public static void writeHeader(ByteBuf out, int type, int flags, long requestId, long deadline) {
+		out.writeByte(type);
+		out.writeByte(flags);
+		out.writeLongLE(requestId);
+		out.writeLongLE(deadline);
+	}
+
+	/**
+	 * Request id of the frame at the reader index of {@code in}, without the length field.
+	 */
+	public static long getRequestId(ByteBuf in) {
+		return in.getLongLE(in.readerIndex() + 2);
+	}
+
+	/**
+	 * Deadline of the frame at the reader index of {@code in}, without the length field.
+	 */
+	public static long getDeadline(ByteBuf in) {
+		return in.getLongLE(in.readerIndex() + 10);
+	}
+
+	/**
+	 * Replaces the remaining time of a request frame by the deadline on the local clock,
+	 * if the channel negotiated {@link Protocol#RELATIVE_DEADLINES}.
+	 */
+	public static void toLocalDeadline(ByteBuf in, Protocol protocol, long receiveTime) {
+		if (in.readableBytes() < HEADER_LENGTH || !protocol.isEnabled(Protocol.RELATIVE_DEADLINES)) {
+			return;
+		}
+
+		final short type = in.getUnsignedByte(in.readerIndex());
+		final long remaining = getDeadline(in);
+		if ((type == DEFAULT || type == INDEXED || type == BATCH) && remaining != -1) {
+			in.setLongLE(in.readerIndex() + 10, receiveTime + remaining);
+		}
+	}
+}
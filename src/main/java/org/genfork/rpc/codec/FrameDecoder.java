@@ -0,0 +1,84 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.util.List;
+
+/**
+ * Splits the inbound stream into frames by their length field, bounded by the max frame length of the {@link Protocol}.
+ * Until the channel negotiates a protocol the {@link Legacy} frames are decoded into messages right here.
+ * Relative deadlines are converted against the time of the socket read, so the frames which wait
+ * behind a slow request of the same read are not granted extra time.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public class FrameDecoder extends ByteToMessageDecoder {
+	private long receiveTime;
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		receiveTime = System.currentTimeMillis();
+		super.channelRead(ctx, msg);
+	}
+
+	@Override
+	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+		final Protocol protocol = Protocol.get(ctx.channel());
+		if (protocol.isLegacy()) {
+			decodeLegacy(ctx, in, out);
+			return;
+		}
+
+		if (in.readableBytes() < Frame.LENGTH_FIELD_LENGTH) {
+			return;
+		}
+
+		final long frameLength = in.getUnsignedIntLE(in.readerIndex());
+		if (frameLength < Frame.LENGTH_FIELD_LENGTH) {
+			throw new CorruptedFrameException("Frame length " + frameLength + " is less than length field length " + Frame.LENGTH_FIELD_LENGTH);
+		}
+
+		if (frameLength > protocol.getMaxFrameLength()) {
+			throw new TooLongFrameException("Frame length exceeds " + protocol.getMaxFrameLength() + ": " + frameLength);
+		}
+
+		if (in.readableBytes() < frameLength) {
+			return;
+		}
+
+		in.skipBytes(Frame.LENGTH_FIELD_LENGTH);
+
+		final ByteBuf frame = in.readRetainedSlice((int) frameLength - Frame.LENGTH_FIELD_LENGTH);
+		Frame.toLocalDeadline(frame, protocol, receiveTime);
+		out.add(frame);
+	}
+
+	private void decodeLegacy(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+		if (in.readableBytes() < Legacy.LENGTH_FIELD_LENGTH) {
+			return;
+		}
+
+		final int frameLength = in.getUnsignedShortLE(in.readerIndex());
+		if (frameLength < Legacy.LENGTH_FIELD_LENGTH) {
+			throw new CorruptedFrameException("Frame length " + frameLength + " is less than length field length " + Legacy.LENGTH_FIELD_LENGTH);
+		}
+
+		if (frameLength > Legacy.MAX_FRAME_LENGTH) {
+			throw new TooLongFrameException("Frame length exceeds " + Legacy.MAX_FRAME_LENGTH + ": " + frameLength);
+		}
+
+		if (in.readableBytes() < frameLength) {
+			return;
+		}
+
+		in.skipBytes(Legacy.LENGTH_FIELD_LENGTH);
+
+		final ByteBuf frame = in.readSlice(frameLength - Legacy.LENGTH_FIELD_LENGTH);
+		out.add(Legacy.read(ctx.channel(), frame));
+	}
+}
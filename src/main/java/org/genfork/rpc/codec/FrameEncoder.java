@@ -0,0 +1,176 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.TooLongFrameException;
+import org.genfork.rpc.KryoCodec;
+import org.genfork.rpc.data.*;
+
+/**
+ * Encodes requests and replies into complete {@link Frame frames}: length, header and body are written
+ * into a single buffer, compression is applied to the body in place.
+ * Until the channel negotiates a protocol the messages are written as {@link Legacy} frames.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@ChannelHandler.Sharable
+public class FrameEncoder extends MessageToByteEncoder<Object> {
+	public static final FrameEncoder INSTANCE = new FrameEncoder();
+
+	@Override
+	public boolean acceptOutboundMessage(Object msg) {
+		return msg instanceof IRequest || msg instanceof RequestMessage;
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+		if (msg instanceof IRequest) {
+			if (!promise.setUncancellable()) {
+				return;
+			}
+		}
+
+		try {
+			super.write(ctx, msg, promise);
+		} catch (Exception e) {
+			promise.tryFailure(e);
+			throw e;
+		}
+	}
+
+	@Override
+	protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) {
+		final Protocol protocol = Protocol.get(ctx.channel());
+		if (protocol.isLegacy()) {
+			Legacy.write(ctx.channel(), out, msg);
+			return;
+		}
+
+		final int start = out.writerIndex();
+		final int headerIndex = start + Frame.LENGTH_FIELD_LENGTH;
+		out.writerIndex(headerIndex);
+
+		if (msg instanceof DefaultRequestData<?> requestData) {
+			final DefaultRequest defaultRequest = requestData.getDefaultRequest();
+
+			final int flags = defaultRequest.isNoResult() ? Frame.NO_RESULT : 0;
+
+			final int methodId = protocol.getMethods().idOf(defaultRequest.getServiceClass(), defaultRequest.getMethod());
+			if (methodId > 0) {
+				Frame.writeHeader(out, Frame.INDEXED, flags, defaultRequest.getRequestId(), deadlineOf(protocol, defaultRequest.getDeadline()));
+				out.writeShortLE(methodId);
+				writeBody(ctx, protocol, out, headerIndex, defaultRequest.withoutTarget());
+			} else {
+				Frame.writeHeader(out, Frame.DEFAULT, flags, defaultRequest.getRequestId(), deadlineOf(protocol, defaultRequest.getDeadline()));
+				writeBody(ctx, protocol, out, headerIndex, defaultRequest);
+			}
+		} else if (msg instanceof BatchRequestData requestData) {
+			writeMessage(ctx, protocol, out, headerIndex, Frame.BATCH, toBatchRequest(protocol, requestData));
+		} else if (msg instanceof LockRequestData<?> requestData) {
+			writeMessage(ctx, protocol, out, headerIndex, Frame.LOCK, requestData.getLockRequest());
+		} else if (msg instanceof CancelRequest request) {
+			Frame.writeHeader(out, Frame.CANCEL, 0, request.getRequestId(), -1);
+		} else if (msg instanceof Heartbeat heartbeat) {
+			Frame.writeHeader(out, heartbeat.isPong() ? Frame.PONG : Frame.PING, 0, heartbeat.getRequestId(), -1);
+		} else if (msg instanceof AuthRequestData<?> requestData) {
+			writeAuth(protocol, out, requestData.getAuthRequest(), requestData.getAuthRequest().getProtocol());
+		} else if (msg instanceof DefaultReply reply) {
+			writeMessage(ctx, protocol, out, headerIndex, Frame.DEFAULT, reply);
+		} else if (msg instanceof BatchReply reply) {
+			writeMessage(ctx, protocol, out, headerIndex, Frame.BATCH, reply);
+		} else if (msg instanceof LockReply reply) {
+			writeMessage(ctx, protocol, out, headerIndex, Frame.LOCK, reply);
+		} else if (msg instanceof AuthReply reply) {
+			writeAuth(protocol, out, reply, reply.getProtocol());
+		} else {
+			throw new EncoderException("Unsupported message: " + msg.getClass().getName());
+		}
+
+		final int length = out.writerIndex() - start;
+		if (length > protocol.getMaxFrameLength()) {
+			throw new TooLongFrameException("Frame length exceeds " + protocol.getMaxFrameLength() + ": " + length);
+		}
+
+		out.setIntLE(start, length);
+	}
+
+	private void writeMessage(ChannelHandlerContext ctx, Protocol protocol, ByteBuf out, int headerIndex, int type, RequestMessage message) {
+		Frame.writeHeader(out, type, 0, message.getRequestId(), deadlineOf(protocol, message.getDeadline()));
+		writeBody(ctx, protocol, out, headerIndex, message);
+	}
+
+	/**
+	 * Remaining time of the request with {@link Protocol#RELATIVE_DEADLINES}, the receiver turns it back
+	 * into a deadline by its own clock.
+	 */
+	private static long deadlineOf(Protocol protocol, long deadline) {
+		if (deadline == -1 || !protocol.isEnabled(Protocol.RELATIVE_DEADLINES)) {
+			return deadline;
+		}
+
+		return Math.max(0, deadline - System.currentTimeMillis());
+	}
+
+	private BatchRequest toBatchRequest(Protocol protocol, BatchRequestData requestData) {
+		final BatchRequest batchRequest = new BatchRequest(requestData.getRequests().size());
+		batchRequest.setRequestId(requestData.getRequestId());
+		batchRequest.setDeadline(requestData.getDeadline());
+
+		for (int i = 0; i < requestData.getRequests().size(); i++) {
+			final DefaultRequest defaultRequest = requestData.getRequests().get(i).getDefaultRequest();
+
+			final int methodId = protocol.getMethods().idOf(defaultRequest.getServiceClass(), defaultRequest.getMethod());
+			batchRequest.getRequestIds()[i] = defaultRequest.getRequestId();
+			batchRequest.getMethodIds()[i] = methodId;
+			batchRequest.getNoResult()[i] = defaultRequest.isNoResult();
+			batchRequest.getDeadlines()[i] = defaultRequest.getDeadline() == -1 || requestData.getDeadline() == -1
+					? -1
+					: requestData.getDeadline() - defaultRequest.getDeadline();
+			batchRequest.getRequests()[i] = methodId > 0 ? defaultRequest.withoutTarget() : defaultRequest;
+		}
+
+		return batchRequest;
+	}
+
+	private void writeAuth(Protocol protocol, ByteBuf out, RequestMessage message, Protocol proposed) {
+		Frame.writeHeader(out, Frame.AUTH, 0, message.getRequestId(), message.getDeadline());
+
+		// handshake is always written with Kryo, the negotiated codec applies after it
+		KryoCodec.write(protocol.getDictionary(), out, message);
+
+		if (proposed != null) {
+			proposed.writeTo(out);
+		}
+	}
+
+	private void writeBody(ChannelHandlerContext ctx, Protocol protocol, ByteBuf out, int headerIndex, Object body) {
+		final int bodyIndex = out.writerIndex();
+		protocol.getCodec().encode(protocol, out, body);
+
+		final int length = out.writerIndex() - bodyIndex;
+		if (protocol.getCompression() != Compression.LZ4 || length < protocol.getCompressionThreshold()) {
+			return;
+		}
+
+		final ByteBuf compressed = ctx.alloc().buffer(Compression.maxCompressedLength(length));
+		try {
+			final int compressedLength = Compression.compress(out.slice(bodyIndex, length), compressed);
+			if (compressedLength + 4 >= length) {
+				return;
+			}
+
+			out.setByte(headerIndex + 1, out.getByte(headerIndex + 1) | Frame.COMPRESSED);
+
+			out.writerIndex(bodyIndex);
+			out.writeIntLE(length);
+			out.writeBytes(compressed);
+		} finally {
+			compressed.release();
+		}
+	}
+}
@@ -0,0 +1,297 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.util.AttributeKey;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.genfork.rpc.KryoCodec;
+import org.genfork.rpc.data.*;
+
+/**
+ * Framing of the releases without the {@link Protocol} handshake: the length field (unsigned short) which includes itself,
+ * the message type (byte) and the Kryo body with the fields the messages had in those releases, request ids are strings.
+ * A channel uses it until both peers negotiate a protocol, those releases ignore the protocol options after the body
+ * of the auth messages, so the channel to such a peer keeps it.
+ * <p>
+ * Numeric ids of the current clients are kept, other ids of the peer are replaced by negative local ids
+ * until the reply is written. A batch is sent as one request frame per entry.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public final class Legacy {
+	public static final int LENGTH_FIELD_LENGTH = 2;
+	public static final int MAX_FRAME_LENGTH = 32768 - 2;
+
+	private static final AttributeKey<Ids> IDS = AttributeKey.valueOf("LEGACY_IDS");
+
+	private Legacy() {
+	}
+
+	/**
+	 * Writes the message as one or more complete frames.
+	 */
+	public static void write(Channel channel, ByteBuf out, Object msg) {
+		final Ids ids = ids(channel);
+
+		if (msg instanceof DefaultRequestData<?> requestData) {
+			writeFrame(out, Frame.DEFAULT, DefaultRequest.class, new Request(ids, requestData.getDefaultRequest()), null);
+		} else if (msg instanceof BatchRequestData requestData) {
+			for (DefaultRequestData<Object> entry : requestData.getRequests()) {
+				writeFrame(out, Frame.DEFAULT, DefaultRequest.class, new Request(ids, entry.getDefaultRequest()), null);
+			}
+		} else if (msg instanceof LockRequestData<?> requestData) {
+			writeFrame(out, Frame.LOCK, LockRequest.class, new Lock(ids, requestData.getLockRequest()), null);
+		} else if (msg instanceof AuthRequestData<?> requestData) {
+			final AuthRequest authRequest = requestData.getAuthRequest();
+			writeFrame(out, Frame.AUTH, AuthRequest.class, new Auth(ids, authRequest), authRequest.getProtocol());
+		} else if (msg instanceof DefaultReply reply) {
+			writeFrame(out, Frame.DEFAULT, DefaultReply.class, new Reply(ids, reply), null);
+		} else if (msg instanceof LockReply reply) {
+			writeFrame(out, Frame.LOCK, LockReply.class, new LockResult(ids, reply), null);
+		} else if (msg instanceof AuthReply reply) {
+			writeFrame(out, Frame.AUTH, AuthReply.class, new AuthResult(ids, reply), reply.getProtocol());
+		} else {
+			throw new EncoderException("Unsupported message without a negotiated protocol: " + msg.getClass().getName());
+		}
+	}
+
+	private static void writeFrame(ByteBuf out, int type, Class<?> messageType, Object body, Protocol proposed) {
+		final int start = out.writerIndex();
+		out.writerIndex(start + LENGTH_FIELD_LENGTH);
+
+		out.writeByte(type);
+		KryoCodec.writeAs(out, messageType, body);
+
+		if (proposed != null) {
+			proposed.writeTo(out);
+		}
+
+		final int length = out.writerIndex() - start;
+		if (length > MAX_FRAME_LENGTH) {
+			throw new TooLongFrameException("Frame length exceeds " + MAX_FRAME_LENGTH + ": " + length);
+		}
+
+		out.setShortLE(start, length);
+	}
+
+	/**
+	 * Reads the message of a frame without the length field.
+	 */
+	public static RequestMessage read(Channel channel, ByteBuf frame) {
+		if (!frame.isReadable()) {
+			throw new CorruptedFrameException("Empty frame");
+		}
+
+		// the type is implied by the class of the body
+		frame.skipBytes(1);
+
+		final Object body = KryoCodec.readAs(frame, Legacy::bodyOf);
+		final Ids ids = ids(channel);
+
+		if (body instanceof Request request) {
+			return request.toMessage(ids);
+		} else if (body instanceof Reply reply) {
+			return reply.toMessage(ids);
+		} else if (body instanceof Lock lock) {
+			return lock.toMessage(ids);
+		} else if (body instanceof LockResult result) {
+			return result.toMessage(ids);
+		} else if (body instanceof Auth auth) {
+			final AuthRequest authRequest = auth.toMessage(ids);
+			authRequest.setProtocol(Protocol.readFrom(frame));
+			return authRequest;
+		} else if (body instanceof AuthResult result) {
+			final AuthReply authReply = result.toMessage(ids);
+			authReply.setProtocol(Protocol.readFrom(frame));
+			return authReply;
+		}
+
+		throw new CorruptedFrameException("Empty message body");
+	}
+
+	private static Class<?> bodyOf(Class<?> type) {
+		if (type == DefaultRequest.class) {
+			return Request.class;
+		} else if (type == DefaultReply.class) {
+			return Reply.class;
+		} else if (type == LockRequest.class) {
+			return Lock.class;
+		} else if (type == LockReply.class) {
+			return LockResult.class;
+		} else if (type == AuthRequest.class) {
+			return Auth.class;
+		} else if (type == AuthReply.class) {
+			return AuthResult.class;
+		}
+
+		throw new CorruptedFrameException("Unsupported message: " + type.getName());
+	}
+
+	private static Ids ids(Channel channel) {
+		Ids ids = channel.attr(IDS).get();
+		if (ids == null) {
+			ids = new Ids();
+			channel.attr(IDS).set(ids);
+		}
+
+		return ids;
+	}
+
+	/**
+	 * Accessed by the codec on the event loop of the channel only.
+	 */
+	private static final class Ids {
+		private final LongObjectMap<String> mapped = new LongObjectHashMap<>();
+		private long next;
+
+		long toLocal(String id, boolean replied) {
+			if (id != null && id.length() < 19 && NumberUtils.isDigits(id)) {
+				return Long.parseLong(id);
+			}
+
+			final long local = --next;
+			if (replied) {
+				mapped.put(local, id);
+			}
+
+			return local;
+		}
+
+		String toRemote(long id) {
+			return id < 0 ? mapped.remove(id) : Long.toString(id);
+		}
+	}
+
+	// bodies with the fields, their order and types of the messages of those releases
+
+	private static final class Request {
+		private String requestId;
+		private Class<?> serviceClass;
+		private String methodName;
+		private Object[] args;
+		private boolean noResult;
+		private long deadline;
+
+		Request(Ids ids, DefaultRequest request) {
+			requestId = ids.toRemote(request.getRequestId());
+			serviceClass = request.getServiceClass();
+			methodName = request.getMethodName();
+			args = request.getArgs();
+			noResult = request.isNoResult();
+			deadline = request.getDeadline();
+		}
+
+		DefaultRequest toMessage(Ids ids) {
+			final DefaultRequest request = new DefaultRequest();
+			request.setRequestId(ids.toLocal(requestId, !noResult));
+			request.setServiceClass(serviceClass);
+			request.setMethodName(methodName);
+			request.setArgs(args);
+			request.setNoResult(noResult);
+			request.setDeadline(deadline);
+			return request;
+		}
+	}
+
+	private static final class Reply {
+		private String requestId;
+		private Object result;
+
+		Reply(Ids ids, DefaultReply reply) {
+			requestId = ids.toRemote(reply.getRequestId());
+			result = reply.getResult();
+		}
+
+		DefaultReply toMessage(Ids ids) {
+			return new DefaultReply(ids.toLocal(requestId, false), result);
+		}
+	}
+
+	private static final class Lock {
+		private String requestId;
+		private LockRequestType lockRequestType;
+		private long threadId;
+		private String entry;
+		private long waitTime;
+		private long leaseTime;
+
+		Lock(Ids ids, LockRequest request) {
+			requestId = ids.toRemote(request.getRequestId());
+			lockRequestType = request.getLockRequestType();
+			threadId = request.getThreadId();
+			entry = request.getEntry();
+			waitTime = request.getWaitTime();
+			leaseTime = request.getLeaseTime();
+		}
+
+		LockRequest toMessage(Ids ids) {
+			final LockRequest request = new LockRequest(lockRequestType, threadId, entry, waitTime, leaseTime);
+			request.setRequestId(ids.toLocal(requestId, true));
+			return request;
+		}
+	}
+
+	private static final class LockResult {
+		private String requestId;
+		private long threadId;
+		private String entry;
+		private LockAcquireType type;
+
+		LockResult(Ids ids, LockReply reply) {
+			requestId = ids.toRemote(reply.getRequestId());
+			threadId = reply.getThreadId();
+			entry = reply.getEntry();
+			type = reply.getType();
+		}
+
+		LockReply toMessage(Ids ids) {
+			final LockReply reply = new LockReply();
+			reply.setRequestId(ids.toLocal(requestId, false));
+			reply.setThreadId(threadId);
+			reply.setEntry(entry);
+			reply.setType(type);
+			return reply;
+		}
+	}
+
+	private static final class Auth {
+		private String requestId, login, password;
+		private long deadline;
+
+		Auth(Ids ids, AuthRequest request) {
+			requestId = ids.toRemote(request.getRequestId());
+			login = request.getLogin();
+			password = request.getPassword();
+			deadline = request.getDeadline();
+		}
+
+		AuthRequest toMessage(Ids ids) {
+			final AuthRequest request = new AuthRequest(login, password);
+			request.setRequestId(ids.toLocal(requestId, true));
+			request.setDeadline(deadline);
+			return request;
+		}
+	}
+
+	private static final class AuthResult {
+		private String requestId;
+		private boolean success;
+		private String reason;
+
+		AuthResult(Ids ids, AuthReply reply) {
+			requestId = ids.toRemote(reply.getRequestId());
+			success = reply.isSuccess();
+			reason = reply.getReason();
+		}
+
+		AuthReply toMessage(Ids ids) {
+			return new AuthReply(ids.toLocal(requestId, false), success, reason);
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.handler.codec.TooLongFrameException;
+import org.genfork.rpc.KryoCodec;
+import org.genfork.rpc.data.*;
+
+import java.util.List;
+
+/**
+ * Decodes {@link Frame frames} into messages, the message class is looked up by the frame type.
+ * {@link #REQUESTS} is used by the server, {@link #REPLIES} by the client.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@ChannelHandler.Sharable
+public class MessageDecoder extends MessageToMessageDecoder<ByteBuf> {
+	public static final MessageDecoder REQUESTS = new MessageDecoder(DefaultRequest.class, LockRequest.class, AuthRequest.class, BatchRequest.class, CancelRequest.class, Frame.PING);
+	public static final MessageDecoder REPLIES = new MessageDecoder(DefaultReply.class, LockReply.class, AuthReply.class, BatchReply.class, null, Frame.PONG);
+
+	private final Class<?>[] types;
+
+	private MessageDecoder(Class<? extends RequestMessage> defaultType,
+	                       Class<? extends RequestMessage> lockType,
+	                       Class<? extends RequestMessage> authType,
+	                       Class<? extends RequestMessage> batchType,
+	                       Class<? extends RequestMessage> cancelType,
+	                       short heartbeatType) {
+		types = new Class<?>[Frame.PONG + 1];
+		types[Frame.DEFAULT] = defaultType;
+		types[Frame.LOCK] = lockType;
+		types[Frame.AUTH] = authType;
+		types[Frame.INDEXED] = defaultType;
+		types[Frame.BATCH] = batchType;
+		types[Frame.CANCEL] = cancelType;
+		types[heartbeatType] = Heartbeat.class;
+	}
+
+	@Override
+	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+		if (in.readableBytes() < Frame.HEADER_LENGTH) {
+			throw new CorruptedFrameException("Frame is shorter than the header: " + in.readableBytes());
+		}
+
+		final short type = in.readUnsignedByte();
+		final int flags = in.readUnsignedByte();
+		final long requestId = in.readLongLE();
+		final long deadline = in.readLongLE();
+
+		final Class<?> messageType = type < types.length ? types[type] : null;
+		if (messageType == null) {
+			throw new CorruptedFrameException("Unknown frame type: " + type);
+		}
+
+		final Protocol protocol = Protocol.get(ctx.channel());
+		final int methodId = type == Frame.INDEXED ? in.readUnsignedShortLE() : 0;
+
+		final RequestMessage message;
+		if (type == Frame.CANCEL) {
+			message = new CancelRequest();
+		} else if (type == Frame.PING || type == Frame.PONG) {
+			message = new Heartbeat(requestId, type == Frame.PONG);
+		} else if (type == Frame.AUTH) {
+			message = (RequestMessage) KryoCodec.read(protocol.getDictionary(), in, messageType);
+
+			final Protocol proposed = Protocol.readFrom(in);
+			if (message instanceof AuthRequest authRequest) {
+				authRequest.setProtocol(proposed);
+			} else {
+				((AuthReply) message).setProtocol(proposed);
+			}
+		} else if ((flags & Frame.COMPRESSED) != 0) {
+			final ByteBuf body = decompress(ctx, protocol, in);
+			try {
+				message = (RequestMessage) protocol.getCodec().decode(protocol, body, messageType);
+			} finally {
+				body.release();
+			}
+		} else {
+			message = (RequestMessage) protocol.getCodec().decode(protocol, in, messageType);
+		}
+
+		message.setRequestId(requestId);
+		message.setDeadline(deadline);
+
+		if (message instanceof DefaultRequest defaultRequest) {
+			defaultRequest.setMethodId(methodId);
+			defaultRequest.setNoResult((flags & Frame.NO_RESULT) != 0);
+		}
+
+		out.add(message);
+	}
+
+	private ByteBuf decompress(ChannelHandlerContext ctx, Protocol protocol, ByteBuf in) {
+		final int length = in.readIntLE();
+		final int maxLength = protocol.getMaxFrameLength();
+		if (length < 0 || length > maxLength) {
+			throw new TooLongFrameException("Message length exceeds " + maxLength + ": " + length);
+		}
+
+		final ByteBuf body = ctx.alloc().buffer(length);
+		try {
+			Compression.decompress(in, body, length);
+		} catch (RuntimeException e) {
+			body.release();
+			throw e;
+		}
+
+		return body;
+	}
+}
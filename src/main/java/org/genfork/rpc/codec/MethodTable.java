@@ -0,0 +1,141 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Method ids of the services bound on the server, sent to the client in the {@link org.genfork.rpc.data.AuthReply}.
+ * Id of a method is its position in the table starting from 1, 0 means that the method is unknown
+ * and the request is sent with the service class and method name.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Slf4j
+public class MethodTable {
+	public static final MethodTable EMPTY = new MethodTable(List.of());
+
+	// table travels inside the auth reply, which still uses the legacy framing
+	private static final int MAX_LENGTH = 12 * 1024;
+
+	@Getter
+	private final List<String> keys;
+
+	private final Map<String, Integer> ids = new HashMap<>();
+	private final Map<Class<?>, Map<Method, Integer>> cache = new ConcurrentHashMap<>();
+
+	private MethodTable(List<String> keys) {
+		this.keys = keys;
+
+		for (int i = 0; i < keys.size(); i++) {
+			ids.put(keys.get(i), i + 1);
+		}
+	}
+
+	public static MethodTable of(List<String> keys) {
+		final List<String> result = new ArrayList<>(keys.size());
+
+		int length = 4;
+		String service = null;
+		for (String key : keys) {
+			final int separator = key.indexOf('#');
+			if (service == null || !key.startsWith(service + "#")) {
+				service = key.substring(0, separator);
+				length += 4 + service.getBytes(StandardCharsets.UTF_8).length;
+			}
+
+			length += 2 + key.substring(separator + 1).getBytes(StandardCharsets.UTF_8).length;
+			if (length > MAX_LENGTH) {
+				log.debug("Method table is truncated to {} methods", result.size());
+				break;
+			}
+
+			result.add(key);
+		}
+
+		return new MethodTable(List.copyOf(result));
+	}
+
+	public static String key(Class<?> serviceClass, Method method) {
+		final StringJoiner joiner = new StringJoiner(",", serviceClass.getName() + "#" + method.getName() + "(", ")");
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			joiner.add(parameterType.getName());
+		}
+
+		return joiner.toString();
+	}
+
+	public int idOf(Class<?> serviceClass, Method method) {
+		if (method == null || ids.isEmpty()) {
+			return 0;
+		}
+
+		return cache
+				.computeIfAbsent(serviceClass, v -> new ConcurrentHashMap<>())
+				.computeIfAbsent(method, v -> ids.getOrDefault(key(serviceClass, method), 0));
+	}
+
+	public void writeTo(ByteBuf out) {
+		final int countIndex = out.writerIndex();
+		out.writeIntLE(0);
+
+		int services = 0;
+		int i = 0;
+		while (i < keys.size()) {
+			final String service = keys.get(i).substring(0, keys.get(i).indexOf('#'));
+
+			int j = i;
+			while (j < keys.size() && keys.get(j).startsWith(service + "#")) {
+				j++;
+			}
+
+			writeString(out, service);
+			out.writeShortLE(j - i);
+
+			for (; i < j; i++) {
+				writeString(out, keys.get(i).substring(service.length() + 1));
+			}
+
+			services++;
+		}
+
+		out.setIntLE(countIndex, services);
+	}
+
+	public static MethodTable readFrom(ByteBuf in) {
+		final int services = in.readIntLE();
+		if (services < 0 || services > in.readableBytes() / 4) {
+			throw new CorruptedFrameException("Invalid method table size: " + services);
+		}
+
+		final List<String> keys = new ArrayList<>();
+		for (int i = 0; i < services; i++) {
+			final String service = readString(in);
+
+			final int methods = in.readUnsignedShortLE();
+			for (int j = 0; j < methods; j++) {
+				keys.add(service + "#" + readString(in));
+			}
+		}
+
+		return new MethodTable(List.copyOf(keys));
+	}
+
+	private static void writeString(ByteBuf out, String value) {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeShortLE(bytes.length);
+		out.writeBytes(bytes);
+	}
+
+	private static String readString(ByteBuf in) {
+		final int length = in.readUnsignedShortLE();
+		return in.readCharSequence(length, StandardCharsets.UTF_8).toString();
+	}
+}
@@ -0,0 +1,195 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.util.AttributeKey;
+import lombok.Getter;
+import org.genfork.rpc.KryoCodec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire protocol options of a channel, negotiated during the {@link org.genfork.rpc.data.AuthRequest} handshake.
+ * Options are transferred as a trailer after the Kryo body of the auth messages, which older peers ignore,
+ * so a channel without a negotiated protocol keeps the {@link #LEGACY} framing of {@link Legacy}.
+ * With {@link #CLASS_DICTIONARY} the trailer also carries the {@link ClassDictionary} of the peer,
+ * with {@link #METHOD_TABLE} the server replies with the {@link MethodTable} of its bound services,
+ * with {@link #CODEC} the client proposes its {@link Codec} and the server replies with the accepted one,
+ * with {@link #RELATIVE_DEADLINES} request frames carry the remaining time instead of the absolute deadline,
+ * with {@link #CANCELLATION} the client sends {@link Frame#CANCEL} frames for abandoned requests,
+ * with {@link #HEARTBEAT} the server answers {@link Frame#PING} frames of the client.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Getter
+public class Protocol {
+	public static final AttributeKey<Protocol> PROTOCOL = AttributeKey.valueOf("PROTOCOL");
+
+	public static final int DEFAULT_MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+	public static final int CHUNKED_FRAMES = 1;
+	public static final int CLASS_DICTIONARY = 2;
+	public static final int METHOD_TABLE = 4;
+	public static final int COMPRESSION = 8;
+	public static final int CODEC = 16;
+	public static final int RELATIVE_DEADLINES = 32;
+	public static final int CANCELLATION = 64;
+	public static final int HEARTBEAT = 128;
+
+	public static final Protocol LEGACY = new Protocol(0, Legacy.MAX_FRAME_LENGTH);
+
+	private static final int HANDSHAKE_MAGIC = 0x53594E43;
+	private static final int HANDSHAKE_LENGTH = 12;
+
+	private final int features;
+	private final int maxFrameLength;
+	private final ClassDictionary dictionary;
+	private final MethodTable methods;
+	private final Codec codec;
+
+	// local send policy, not transferred
+	private final Compression compression;
+	private final int compressionThreshold;
+
+	public Protocol(int features, int maxFrameLength) {
+		this(features, maxFrameLength, null, MethodTable.EMPTY);
+	}
+
+	public Protocol(int features, int maxFrameLength, ClassDictionary dictionary, MethodTable methods) {
+		this(features, maxFrameLength, dictionary, methods, KryoCodec.INSTANCE, Compression.NONE, 0);
+	}
+
+	private Protocol(int features, int maxFrameLength, ClassDictionary dictionary, MethodTable methods, Codec codec,
+	                 Compression compression, int compressionThreshold) {
+		this.features = features;
+		this.maxFrameLength = maxFrameLength;
+		this.dictionary = dictionary;
+		this.methods = methods;
+		this.codec = codec;
+		this.compression = compression;
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	public static Protocol supported(int maxFrameLength) {
+		return new Protocol(CHUNKED_FRAMES | CLASS_DICTIONARY | METHOD_TABLE | COMPRESSION | CODEC
+						| RELATIVE_DEADLINES | CANCELLATION | HEARTBEAT,
+				maxFrameLength, ClassDictionary.local(), MethodTable.EMPTY);
+	}
+
+	/**
+	 * Copy of the protocol which compresses outgoing messages, if the peer supports {@link #COMPRESSION}.
+	 */
+	public Protocol withCompression(Compression compression, int compressionThreshold) {
+		if (!isEnabled(COMPRESSION)) {
+			return this;
+		}
+
+		return new Protocol(features, maxFrameLength, dictionary, methods, codec, compression, compressionThreshold);
+	}
+
+	/**
+	 * Copy of the protocol which proposes the codec to the peer, if the peer supports {@link #CODEC}.
+	 */
+	public Protocol withCodec(Codec codec) {
+		if (!isEnabled(CODEC)) {
+			return this;
+		}
+
+		return new Protocol(features, maxFrameLength, dictionary, methods, codec, compression, compressionThreshold);
+	}
+
+	public static Protocol get(Channel channel) {
+		final Protocol protocol = channel.attr(PROTOCOL).get();
+		return protocol != null ? protocol : LEGACY;
+	}
+
+	public boolean isLegacy() {
+		return this == LEGACY;
+	}
+
+	public boolean isEnabled(int feature) {
+		return (features & feature) == feature;
+	}
+
+	public Protocol negotiate(Protocol remote, MethodTable localMethods) {
+		final int agreed = features & remote.features;
+		final int agreedMaxFrameLength = Math.min(maxFrameLength, remote.maxFrameLength);
+		final ClassDictionary agreedDictionary = (agreed & CLASS_DICTIONARY) != 0 ? dictionary.merge(remote.dictionary) : null;
+		final MethodTable agreedMethods = (agreed & METHOD_TABLE) != 0 ? localMethods : MethodTable.EMPTY;
+		final Codec agreedCodec = (agreed & CODEC) != 0 && codec.getName().equals(remote.codec.getName())
+				? codec
+				: KryoCodec.INSTANCE;
+
+		return new Protocol(agreed, agreedMaxFrameLength, agreedDictionary, agreedMethods, agreedCodec,
+				compression, compressionThreshold);
+	}
+
+	public void writeTo(ByteBuf out) {
+		out.writeIntLE(HANDSHAKE_MAGIC);
+		out.writeIntLE(features);
+		out.writeIntLE(maxFrameLength);
+
+		if (isEnabled(CLASS_DICTIONARY)) {
+			dictionary.writeTo(out);
+		}
+
+		if (isEnabled(METHOD_TABLE)) {
+			methods.writeTo(out);
+		}
+
+		if (isEnabled(CODEC)) {
+			final byte[] name = codec.getName().getBytes(StandardCharsets.UTF_8);
+			out.writeShortLE(name.length);
+			out.writeBytes(name);
+		}
+	}
+
+	/**
+	 * @return options of the peer, null for an auth message without them (a rejected handshake or an older peer)
+	 * @throws CorruptedFrameException if the trailer is not a protocol options block
+	 */
+	public static Protocol readFrom(ByteBuf in) {
+		if (!in.isReadable()) {
+			return null;
+		}
+
+		if (in.readableBytes() < HANDSHAKE_LENGTH || in.getIntLE(in.readerIndex()) != HANDSHAKE_MAGIC) {
+			throw new CorruptedFrameException("Malformed protocol options of the handshake");
+		}
+
+		in.skipBytes(4);
+
+		final int features = in.readIntLE();
+		final int maxFrameLength = in.readIntLE();
+
+		final ClassDictionary dictionary = (features & CLASS_DICTIONARY) != 0 ? ClassDictionary.readFrom(in) : null;
+		final MethodTable methods = (features & METHOD_TABLE) != 0 ? MethodTable.readFrom(in) : MethodTable.EMPTY;
+
+		Codec codec = KryoCodec.INSTANCE;
+		if ((features & CODEC) != 0) {
+			final String name = in.readCharSequence(in.readUnsignedShortLE(), StandardCharsets.UTF_8).toString();
+
+			// codec unknown locally can not be agreed on, the channel stays on Kryo
+			final Codec remoteCodec = Codecs.find(name);
+			if (remoteCodec != null) {
+				codec = remoteCodec;
+			}
+		}
+
+		return new Protocol(features, maxFrameLength, dictionary, methods, codec, Compression.NONE, 0);
+	}
+
+	@Override
+	public String toString() {
+		return "Protocol{" +
+				"features=" + features +
+				", maxFrameLength=" + maxFrameLength +
+				", dictionary=" + (dictionary != null ? dictionary.getNames().size() : 0) +
+				", methods=" + methods.getKeys().size() +
+				", codec=" + codec.getName() +
+				", compression=" + compression +
+				'}';
+	}
+}
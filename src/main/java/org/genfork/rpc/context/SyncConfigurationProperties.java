@@ -1,6 +1,9 @@
 package org.genfork.rpc.context;
 
 import lombok.Data;
+import org.genfork.rpc.KryoCodec;
+import org.genfork.rpc.codec.Compression;
+import org.genfork.rpc.handlers.FlushMode;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -17,6 +20,8 @@ import java.util.List;
 public class SyncConfigurationProperties {
 	private Transport transport = Transport.NIO;
 
+	private long startupConnectTimeout = 30_000;
+
 	private Resources resources = new Resources();
 
 	private Inbound inbound = new Inbound();
@@ -38,6 +43,19 @@ public class SyncConfigurationProperties {
 		private int port;
 		private String login;
 		private String password;
+		private int maxFrameLength = 16 * 1024 * 1024;
+		private Compression compression = Compression.NONE;
+		private int compressionThreshold = 1024;
+		private int maxChunkStreams = 16; // chunked messages of the peer reassembled at once
+		private long maxChunkBufferedBytes = 64 * 1024 * 1024;
+		private String codec = KryoCodec.NAME;
+		private FlushMode flushMode = FlushMode.READ_BATCH;
+		private int flushMaxMessages = 64;
+		private long flushWindowMicros = 100;
+		private int writeBufferLowWaterMark = 32 * 1024;
+		private int writeBufferHighWaterMark = 64 * 1024;
+		private int socketSendBuffer; // 0 - system default
+		private int socketReceiveBuffer; // 0 - system default
 	}
 
 	@Data
@@ -46,11 +64,47 @@ public class SyncConfigurationProperties {
 		private boolean enabled = true;
 		private String host;
 		private int port;
+		private List<String> endpoints = new ArrayList<>(); // host:port, replaces host and port
+		private int ejectAfterFailures = 5; // 0 - never ejected
+		private long ejectionTime = 30_000;
+		private int hedgeBudgetPercent = 10; // hedged copies of @Idempotent methods, percent of requests
+		private int breakerWindowSize; // 0 - circuit breaker disabled
+		private int breakerMinimumCalls = 20;
+		private int breakerFailureRate = 50;
+		private int breakerTimeoutRate = 30;
+		private int breakerConsecutiveFailures = 10;
+		private long breakerOpenDuration = 10_000;
+		private int breakerHalfOpenTrials = 3;
+		private long breakerHalfOpenTimeout = 10_000;
+		private long heartbeatInterval; // 0 - heartbeats disabled
+		private int heartbeatMissThreshold = 3;
 		private String login;
 		private String password;
 		private long timeout = 60_000; // -1 no result expected
 		private long lockLeaseTimeout = 300000L;
 		private int connections;
+		private int maxConnections; // 0 - fixed pool of connections
+		private int poolGrowThreshold = 32; // outstanding requests per connection
+		private long poolGrowWriteLatency = 10; // average write time of a busy connection, 0 - outstanding requests only
+		private long poolIdleTimeout = 60_000;
+		private int maxFrameLength = 16 * 1024 * 1024;
+		private Compression compression = Compression.NONE;
+		private int compressionThreshold = 1024;
+		private int maxChunkStreams = 16; // chunked messages of the peer reassembled at once
+		private long maxChunkBufferedBytes = 64 * 1024 * 1024;
+		private String codec = KryoCodec.NAME;
+		private FlushMode flushMode = FlushMode.READ_BATCH;
+		private int flushMaxMessages = 64;
+		private long flushWindowMicros = 100;
+		private int maxInFlight; // 0 - unlimited
+		private int maxQueued; // 0 - reject over the limit
+		private int reconnectBufferRequests; // 0 - fail requests while reconnecting
+		private long reconnectBufferBytes = 4 * 1024 * 1024;
+		private long reconnectBufferMinRemaining = 100;
+		private int writeBufferLowWaterMark = 32 * 1024;
+		private int writeBufferHighWaterMark = 64 * 1024;
+		private int socketSendBuffer; // 0 - system default
+		private int socketReceiveBuffer; // 0 - system default
 		private InitializeMode initializeMode;
 	}
 
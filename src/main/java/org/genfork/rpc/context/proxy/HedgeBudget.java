@@ -0,0 +1,48 @@
+package org.genfork.rpc.context.proxy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token bucket limiting hedged copies to {@code percent} of the requests of the service.
+ * Every request deposits a fraction of a token, a copy withdraws a whole one.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+class HedgeBudget {
+	private static final int TOKEN = 1000;
+	private static final int MAX_BALANCE = 10 * TOKEN;
+
+	private final int deposit;
+	private final AtomicInteger balance = new AtomicInteger();
+
+	HedgeBudget(int percent) {
+		deposit = percent * TOKEN / 100;
+	}
+
+	void onRequest() {
+		if (balance.get() < MAX_BALANCE) {
+			balance.accumulateAndGet(deposit, (current, value) -> Math.min(MAX_BALANCE, current + value));
+		}
+	}
+
+	boolean tryWithdraw() {
+		for (;;) {
+			final int current = balance.get();
+			if (current < TOKEN) {
+				return false;
+			}
+
+			if (balance.compareAndSet(current, current - TOKEN)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Returns the token of a copy that was not sent.
+	 */
+	void refund() {
+		balance.accumulateAndGet(TOKEN, (current, value) -> Math.min(MAX_BALANCE, current + value));
+	}
+}
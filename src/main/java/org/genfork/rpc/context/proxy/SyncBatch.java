@@ -0,0 +1,119 @@
+package org.genfork.rpc.context.proxy;
+
+import org.genfork.rpc.ClientConnection;
+import org.genfork.rpc.SyncClient;
+import org.genfork.rpc.data.DefaultRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Batch scope of the remote calls made by the current thread. Calls of the same outbound service are collected
+ * and sent in one frame when the scope is closed, every call still returns its own future.
+ * <pre>{@code
+ * try (SyncBatch batch = SyncBatch.open()) {
+ *     first = service.first();
+ *     second = service.second();
+ * }
+ * }</pre>
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public class SyncBatch implements AutoCloseable {
+	private static final ThreadLocal<SyncBatch> CURRENT = new ThreadLocal<>();
+
+	private final SyncBatch parent;
+	private final Map<Object, Calls> calls = new LinkedHashMap<>();
+
+	private SyncBatch(SyncBatch parent) {
+		this.parent = parent;
+	}
+
+	public static SyncBatch open() {
+		final SyncBatch batch = new SyncBatch(CURRENT.get());
+		CURRENT.set(batch);
+		return batch;
+	}
+
+	static SyncBatch current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Adds the request of the outbound service identified by the key, the connection is chosen once per service.
+	 */
+	CompletableFuture<Object> add(Object key, Supplier<ClientConnection> connection, DefaultRequest request) {
+		final CompletableFuture<Object> promise = new CompletableFuture<>();
+
+		final Calls serviceCalls = calls.computeIfAbsent(key, v -> new Calls(connection.get()));
+		serviceCalls.requests.add(request);
+		serviceCalls.promises.add(promise);
+		return promise;
+	}
+
+	@Override
+	public void close() {
+		if (CURRENT.get() != this) {
+			return;
+		}
+
+		if (parent != null) {
+			CURRENT.set(parent);
+		} else {
+			CURRENT.remove();
+		}
+
+		for (Calls serviceCalls : calls.values()) {
+			// calls cancelled inside the scope are not sent
+			final List<DefaultRequest> requests = new ArrayList<>(serviceCalls.requests.size());
+			final List<CompletableFuture<Object>> promises = new ArrayList<>(serviceCalls.promises.size());
+			for (int i = 0; i < serviceCalls.promises.size(); i++) {
+				if (!serviceCalls.promises.get(i).isDone()) {
+					requests.add(serviceCalls.requests.get(i));
+					promises.add(serviceCalls.promises.get(i));
+				}
+			}
+
+			if (requests.isEmpty()) {
+				final SyncClient.RequestListener listener = serviceCalls.connection.getSyncClient().getRequestListener();
+				if (listener != null) {
+					listener.onDiscarded();
+				}
+
+				continue;
+			}
+
+			final List<CompletableFuture<Object>> results = serviceCalls.connection.async(requests);
+			for (int i = 0; i < results.size(); i++) {
+				final CompletableFuture<Object> promise = promises.get(i);
+				final CompletableFuture<Object> result = results.get(i);
+				result.whenComplete((res, th) -> {
+					if (th != null) {
+						promise.completeExceptionally(th);
+					} else {
+						promise.complete(res);
+					}
+				});
+
+				SyncServicesManagement.forwardCancel(result, promise);
+			}
+		}
+
+		calls.clear();
+	}
+
+	private static class Calls {
+		private final ClientConnection connection;
+		private final List<DefaultRequest> requests = new ArrayList<>();
+		private final List<CompletableFuture<Object>> promises = new ArrayList<>();
+
+		private Calls(ClientConnection connection) {
+			this.connection = connection;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package org.genfork.rpc.context.proxy;
+
+/**
+ * Options of the remote calls made by the current thread within the scope, nested scopes replace
+ * the options of the outer one until they are closed.
+ * <pre>{@code
+ * try (SyncCallOptions options = SyncCallOptions.timeout(200)) {
+ *     result = service.call();
+ * }
+ * }</pre>
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public class SyncCallOptions implements AutoCloseable {
+	private static final ThreadLocal<SyncCallOptions> CURRENT = new ThreadLocal<>();
+
+	private final SyncCallOptions parent;
+	private final long timeout;
+
+	private SyncCallOptions(SyncCallOptions parent, long timeout) {
+		this.parent = parent;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Milliseconds to wait for the reply, overrides {@link org.genfork.rpc.annotations.ExecutionTimeout}
+	 * and the timeout of the outbound service.
+	 */
+	public static SyncCallOptions timeout(long timeout) {
+		final SyncCallOptions options = new SyncCallOptions(CURRENT.get(), timeout);
+		CURRENT.set(options);
+		return options;
+	}
+
+	static SyncCallOptions current() {
+		return CURRENT.get();
+	}
+
+	long getTimeout() {
+		return timeout;
+	}
+
+	@Override
+	public void close() {
+		if (CURRENT.get() != this) {
+			return;
+		}
+
+		if (parent != null) {
+			CURRENT.set(parent);
+		} else {
+			CURRENT.remove();
+		}
+	}
+}
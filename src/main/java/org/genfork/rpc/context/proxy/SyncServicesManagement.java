@@ -1,22 +1,29 @@
 package org.genfork.rpc.context.proxy;
 
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.netty.channel.EventLoopGroup;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.cliffc.high_scale_lib.NonBlockingHashMap;
 import org.genfork.rpc.*;
 import org.genfork.rpc.annotations.*;
+import org.genfork.rpc.codec.ClassDictionary;
+import org.genfork.rpc.codec.Codecs;
 import org.genfork.rpc.context.LoopGroupFactory;
 import org.genfork.rpc.context.SyncConfigurationProperties;
+import org.genfork.rpc.context.SyncConfigurationProperties.Inbound;
 import org.genfork.rpc.context.SyncConfigurationProperties.Outbound;
 import org.genfork.rpc.context.Transport;
 import org.genfork.rpc.context.events.AbstractSyncServiceInitEvent;
 import org.genfork.rpc.context.events.AbstractSyncServiceInitEvent.ConnectedServiceProperties;
 import org.genfork.rpc.context.events.SyncServicesStarted;
 import org.genfork.rpc.data.DefaultRequest;
+import org.genfork.rpc.exceptions.CircuitBreakerOpenException;
+import org.genfork.rpc.exceptions.RemoteServiceConnectionException;
 import org.genfork.rpc.lock.ClusterSyncLock;
 import org.genfork.rpc.lock.Lock;
 import org.genfork.rpc.lock.LockRegistry;
@@ -52,9 +59,9 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author: GenCloud
@@ -65,7 +72,7 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 		Ordered, ApplicationListener<ApplicationEvent> {
 
 	private final Map<String, SyncServiceContext> serviceContexts = new ConcurrentHashMap<>(1024);
-	private final Map<Class<?>, Map<String, TargetClassMethodMetadata>> methodsMetadata = new ConcurrentHashMap<>(1024);
+	private final Map<Class<?>, Map<Method, TargetClassMethodMetadata>> methodsMetadata = new ConcurrentHashMap<>(1024);
 
 	private static final Map<Class<?>, OutboxProcessor<?>> outboxProcessors = new ConcurrentHashMap<>(256);
 
@@ -159,6 +166,7 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 	}
 
 	private void startServiceContext() {
+		final List<CompletableFuture<ChannelSupplier<Endpoint>>> connects = new ArrayList<>();
 		for (SyncServiceContext serviceContext : serviceContexts.values()) {
 			final SyncConfigurationProperties.InitializeMode initializeMode = serviceContext.getProperties().getInitializeMode();
 			if (initializeMode == SyncConfigurationProperties.InitializeMode.ON_STARTUP) {
@@ -174,9 +182,24 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 				final int port = serviceContext.getProperties().getPort();
 
 				log.info("Try load remote service [{}] to {}:{}", service, host, port);
-				serviceContext.createChannels();
+				connects.add(serviceContext.createChannelsAsync());
 			}
 		}
+
+		if (connects.isEmpty()) {
+			return;
+		}
+
+		final long startupConnectTimeout = syncConfigurationProperties.getStartupConnectTimeout();
+		try {
+			CompletableFuture.allOf(connects.toArray(CompletableFuture[]::new)).get(startupConnectTimeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			log.warn("Remote services are not connected within {} ms, connecting in background.", startupConnectTimeout);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			log.error("Unable to load remote services.", e.getCause());
+		}
 	}
 
 	private void onServiceConnect(AbstractSyncServiceInitEvent event) {
@@ -208,11 +231,11 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 
 							final Transport transport = syncConfigurationProperties.getTransport();
 							try {
-								final SyncServiceContext context = new SyncServiceContext(transport, outboundProperties, svcClass);
+								final SyncServiceContext context = new SyncServiceContext(transport, meterRegistry, outboundProperties, svcClass);
 								context.host = host;
 								context.port = port;
 
-								context.createChannels();
+								context.createChannelsAsync();
 
 								return context;
 							} catch (Exception e) {
@@ -251,9 +274,19 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 					final String login = syncConfigurationProperties.getInbound().getLogin();
 					final String password = syncConfigurationProperties.getInbound().getPassword();
 
+					final Inbound inbound = syncConfigurationProperties.getInbound();
+					final SyncServiceOptions options = SyncServiceOptions.defaults()
+							.maxFrameLength(inbound.getMaxFrameLength())
+							.compression(inbound.getCompression(), inbound.getCompressionThreshold())
+							.chunkStreams(inbound.getMaxChunkStreams(), inbound.getMaxChunkBufferedBytes())
+							.codec(Codecs.get(inbound.getCodec()))
+							.flush(inbound.getFlushMode(), inbound.getFlushMaxMessages(), inbound.getFlushWindowMicros())
+							.writeBufferWaterMark(inbound.getWriteBufferLowWaterMark(), inbound.getWriteBufferHighWaterMark())
+							.socketBuffers(inbound.getSocketSendBuffer(), inbound.getSocketReceiveBuffer());
+
 					final Transport transport = syncConfigurationProperties.getTransport();
 
-					serverStarter = new SyncServer(transport, login, password, host, port, lockRegistry, meterRegistry);
+					serverStarter = new SyncServer(transport, login, password, host, port, options, lockRegistry, meterRegistry);
 					serverStarter.start();
 				}
 			}
@@ -313,13 +346,28 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 				return context.getOrCreateLock(meterRegistry, methodMetadata.isHasServiceId() ? (String) args[1] : (String) args[0]);
 			}
 
-			final ClientConnection connection = context.getConnection();
-
 			final boolean noResultRequired = typeArgument == Void.class;
-			final String invocationId = UUID.randomUUID().toString();
-			final DefaultRequest defaultRequest = new DefaultRequest(invocationId, svcClass, method, args, noResultRequired);
-			return connection
-					.async(defaultRequest)
+			final DefaultRequest defaultRequest = new DefaultRequest(svcClass, method, args, noResultRequired);
+
+			final SyncCallOptions callOptions = SyncCallOptions.current();
+			defaultRequest.setTimeout(callOptions != null ? callOptions.getTimeout() : methodMetadata.getTimeout());
+
+			final SyncBatch batch = SyncBatch.current();
+			CompletableFuture<Object> future;
+			try {
+				if (batch != null) {
+					future = batch.add(context, context::getConnection, defaultRequest);
+				} else if (methodMetadata.getHedgeDelay() >= 0 && !noResultRequired) {
+					future = context.executeHedged(methodMetadata, defaultRequest);
+				} else {
+					future = context.getConnection().async(defaultRequest);
+				}
+			} catch (CircuitBreakerOpenException | RemoteServiceConnectionException e) {
+				// reported through the future, so the outbox processor can keep the request
+				future = CompletableFuture.failedFuture(e);
+			}
+
+			return forwardCancel(future, future
 					.whenComplete((res, th) -> {
 						if (timer != null) {
 							timer.stop(methodMetadata.getTimer());
@@ -333,7 +381,7 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 
 							if (outboxProcessorInformation.isNeedCatch(th)) {
 								outboxProcessorInformation
-										.processFail(invocationId, serviceName, svcClass, defaultRequest)
+										.processFail(serviceName, svcClass, defaultRequest)
 										.whenComplete((noOp, err) -> {
 											if (err != null) {
 												log.error("Outbox processor threw unexpected error. Request data might be lost.", err);
@@ -341,12 +389,26 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 										});
 							}
 						}
-					});
+					}));
 		}
 
 		return method.invoke(target, args);
 	}
 
+	/**
+	 * The caller holds the dependent stage only, its cancel is passed to the source promise,
+	 * so the connection forgets the request and tells the server to stop it.
+	 */
+	static <T> CompletableFuture<T> forwardCancel(CompletableFuture<?> source, CompletableFuture<T> returned) {
+		returned.whenComplete((res, th) -> {
+			if (returned.isCancelled()) {
+				source.cancel(false);
+			}
+		});
+
+		return returned;
+	}
+
 	private CompletableFuture<Object> executeByOutbox(String serviceName, Class<?> nestedServiceClass, DefaultRequest defaultRequest) {
 		if (!initialized) {
 			return CompletableFuture.failedFuture(new IllegalStateException("Service not initialized"));
@@ -357,20 +419,27 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 			throw new IllegalStateException("Outbound service configuration not found for [" + serviceName + "]. Please check it.");
 		}
 
-		final ClientConnection connection = context.getConnection();
+		final ClientConnection connection;
+		try {
+			connection = context.getConnection();
+		} catch (CircuitBreakerOpenException | RemoteServiceConnectionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
 
-		final String methodName = defaultRequest.getMethodName();
-		final TargetClassMethodMetadata methodMetadata = getMethodMetadata(nestedServiceClass, methodName);
+		final TargetClassMethodMetadata methodMetadata = getMethodMetadata(nestedServiceClass, defaultRequest.getMethodName(),
+				defaultRequest.getArgs());
 		if (methodMetadata != null) {
+			defaultRequest.setTimeout(methodMetadata.getTimeout());
+
 			final Timer.Sample timer = startTimerIfPresent();
 
-			return connection
-					.async(defaultRequest)
+			final CompletableFuture<Object> future = connection.async(defaultRequest);
+			return forwardCancel(future, future
 					.whenComplete((res, th) -> {
 						if (timer != null) {
 							timer.stop(methodMetadata.getTimer());
 						}
-					});
+					}));
 		}
 
 		return connection.async(defaultRequest);
@@ -399,7 +468,7 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 								final Transport transport = syncConfigurationProperties.getTransport();
 
 								try {
-									return new SyncServiceContext(transport, outboundProperties, svcClass);
+									return new SyncServiceContext(transport, meterRegistry, outboundProperties, svcClass);
 								} catch (Exception e) {
 									throw new RuntimeException(e);
 								}
@@ -412,13 +481,28 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 
 	private TargetClassMethodMetadata getMethodMetadata(Class<?> svcClass, Method method) {
 		return methodsMetadata.computeIfAbsent(svcClass, v -> new ConcurrentHashMap<>())
-				.computeIfAbsent(method.getName(), v -> new TargetClassMethodMetadata(beanFactory, meterRegistry, method, svcClass));
+				.computeIfAbsent(method, v -> new TargetClassMethodMetadata(beanFactory, meterRegistry, method, svcClass));
 	}
 
+	/**
+	 * Outbox records keep the method name and the arguments only, the overload is resolved by the types of the arguments.
+	 */
 	@Nullable
-	private TargetClassMethodMetadata getMethodMetadata(Class<?> svcClass, String methodName) {
-		return methodsMetadata.computeIfAbsent(svcClass, v -> new ConcurrentHashMap<>())
-				.get(methodName);
+	private TargetClassMethodMetadata getMethodMetadata(Class<?> svcClass, String methodName, Object[] args) {
+		final Map<Method, TargetClassMethodMetadata> metadata = methodsMetadata.get(svcClass);
+		if (metadata == null) {
+			return null;
+		}
+
+		final Class<?>[] argTypes = ClassUtils.toClass(args);
+		for (Map.Entry<Method, TargetClassMethodMetadata> entry : metadata.entrySet()) {
+			final Method method = entry.getKey();
+			if (method.getName().equals(methodName) && ClassUtils.isAssignable(argTypes, method.getParameterTypes(), true)) {
+				return entry.getValue();
+			}
+		}
+
+		return null;
 	}
 
 	@Override
@@ -433,17 +517,11 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 		for (SyncServiceContext context : serviceContexts.values()) {
 			log.info("Close service {}", context.getProperties().getService());
 
-			log.info("Shutdown service client...");
-			final SyncClient client = context.client;
-			if (client != null) {
-				client.shutdownAsync();
-			}
-
-			log.info("Close service connections...");
-			final ChannelSupplier<ClientConnection> channels = context.channels;
-			if (channels != null) {
-				for (ClientConnection connection : channels.getAll()) {
-					connection.closeAsync();
+			log.info("Shutdown service clients and close connections...");
+			final ChannelSupplier<Endpoint> endpoints = context.allEndpoints;
+			if (endpoints != null) {
+				for (Endpoint endpoint : endpoints.getAll()) {
+					endpoint.close();
 				}
 			}
 
@@ -480,8 +558,7 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 											recordInfo.defaultRequest()
 									)
 									.join();
-							final String requestId = recordInfo.defaultRequest().getRequestId();
-							processor.delete(txContext, requestId);
+							processor.delete(txContext, recordInfo.requestId());
 						} catch (Exception e) {
 							log.error("Err while processing outbox.", e);
 							process.set(false);
@@ -507,6 +584,12 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 
 		private Timer timer;
 
+		private long hedgeDelay = -1;
+
+		// 0 - timeout of the outbound service
+		private long timeout;
+		private Counter hedgeCounter, hedgeWinCounter;
+
 		private OutboxProcessorInformation outboxProcessorInformation;
 
 		public TargetClassMethodMetadata(ConfigurableListableBeanFactory beanFactory, MeterRegistry meterRegistry, Method method, Class<?> svcClass) {
@@ -537,6 +620,28 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 						.register(meterRegistry);
 			}
 
+			if (method.isAnnotationPresent(Idempotent.class)) {
+				hedgeDelay = method.getDeclaredAnnotation(Idempotent.class).hedgeDelay();
+
+				if (meterRegistry != null && hedgeDelay >= 0) {
+					hedgeCounter = Counter.builder("sync-client-hedged-requests")
+							.tag("operation", method.getName())
+							.register(meterRegistry);
+					hedgeWinCounter = Counter.builder("sync-client-hedge-wins")
+							.tag("operation", method.getName())
+							.register(meterRegistry);
+				}
+			}
+
+			ExecutionTimeout executionTimeout = method.getAnnotation(ExecutionTimeout.class);
+			if (executionTimeout == null) {
+				executionTimeout = svcClass.getAnnotation(ExecutionTimeout.class);
+			}
+
+			if (executionTimeout != null) {
+				timeout = executionTimeout.value();
+			}
+
 			if (method.isAnnotationPresent(Outbox.class)) {
 				final Outbox outbox = method.getDeclaredAnnotation(Outbox.class);
 				final Class<? extends OutboxProcessor<?>> processorClass = outbox.processor();
@@ -565,6 +670,7 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 		private final Map<String, Lock> locks = new NonBlockingHashMap<>();
 
 		private final Transport transport;
+		private final MeterRegistry meterRegistry;
 		@Getter
 		private final Outbound properties;
 		private final MethodHandle handleEquals, handleToString, handleHashCode;
@@ -572,17 +678,20 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 		private String host;
 		private int port;
 
-		private SyncClient client;
+		private volatile ChannelSupplier<Endpoint> endpoints, allEndpoints;
 
-		private ChannelSupplier<ClientConnection> channels;
+		private final HedgeBudget hedgeBudget;
+		private volatile CompletableFuture<ChannelSupplier<Endpoint>> endpointsFuture;
 
-		private final AtomicBoolean inititalized = new AtomicBoolean(false);
 
-		private SyncServiceContext(Transport transport, Outbound properties, Class<?> svcClass)
+		private SyncServiceContext(Transport transport, MeterRegistry meterRegistry, Outbound properties, Class<?> svcClass)
 				throws NoSuchMethodException, IllegalAccessException {
 			this.transport = transport;
+			this.meterRegistry = meterRegistry;
 			this.properties = properties;
 
+			hedgeBudget = new HedgeBudget(properties.getHedgeBudgetPercent());
+
 			final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
 
 			handleEquals = lookup
@@ -595,67 +704,225 @@ public class SyncServicesManagement implements BeanPostProcessor, InitializingBe
 
 			host = properties.getHost();
 			port = properties.getPort();
+
+			ClassDictionary.registerService(svcClass);
 		}
 
 		public void createChannels() {
-			if (inititalized.compareAndSet(false, true)) {
+			createChannelsAsync().join();
+		}
+
+		/**
+		 * Opens all connections of all endpoints of the service in parallel, every connection is retried
+		 * in the background until it is established or the client is shut down.
+		 */
+		public synchronized CompletableFuture<ChannelSupplier<Endpoint>> createChannelsAsync() {
+			if (endpointsFuture == null) {
 				final long timeout = properties.getTimeout();
 
 				final EventLoopGroup eventLoopGroup = LoopGroupFactory.getClientGroup(transport);
 
+				final SyncServiceOptions options = SyncServiceOptions.defaults()
+						.maxFrameLength(properties.getMaxFrameLength())
+						.compression(properties.getCompression(), properties.getCompressionThreshold())
+						.chunkStreams(properties.getMaxChunkStreams(), properties.getMaxChunkBufferedBytes())
+						.codec(Codecs.get(properties.getCodec()))
+						.flush(properties.getFlushMode(), properties.getFlushMaxMessages(), properties.getFlushWindowMicros())
+						.maxInFlight(properties.getMaxInFlight(), properties.getMaxQueued())
+						.reconnectBuffer(properties.getReconnectBufferRequests(), properties.getReconnectBufferBytes(),
+								properties.getReconnectBufferMinRemaining())
+						.writeBufferWaterMark(properties.getWriteBufferLowWaterMark(), properties.getWriteBufferHighWaterMark())
+						.socketBuffers(properties.getSocketSendBuffer(), properties.getSocketReceiveBuffer())
+						.circuitBreaker(properties.getBreakerWindowSize(), properties.getBreakerMinimumCalls(),
+								properties.getBreakerFailureRate(), properties.getBreakerTimeoutRate(),
+								properties.getBreakerConsecutiveFailures(), properties.getBreakerOpenDuration(),
+								properties.getBreakerHalfOpenTrials(), properties.getBreakerHalfOpenTimeout())
+						.heartbeat(properties.getHeartbeatInterval(), properties.getHeartbeatMissThreshold());
+
 				if (timeout > 0) {
-					client = SyncClient.create(host, port, eventLoopGroup, SyncServiceOptions.defaults().expectResultWithin(timeout));
+					options.expectResultWithin(timeout);
 				} else if (timeout == -1) {
-					client = SyncClient.create(host, port, eventLoopGroup, SyncServiceOptions.defaults().noResult());
-				} else {
-					client = SyncClient.create(host, port, eventLoopGroup, SyncServiceOptions.defaults());
+					options.noResult();
 				}
 
-				final String login = properties.getLogin();
-				final String password = properties.getPassword();
-				client.setLogin(login);
-				client.setPassword(password);
+				final List<String> addresses = properties.getEndpoints().isEmpty()
+						? List.of(host + ":" + port)
+						: properties.getEndpoints();
+
+				final Endpoint[] endpoints = new Endpoint[addresses.size()];
+				@SuppressWarnings("unchecked") final CompletableFuture<ConnectionPool>[] connects = new CompletableFuture[endpoints.length];
+				for (int i = 0; i < endpoints.length; i++) {
+					final String address = addresses.get(i);
+					final int separator = address.lastIndexOf(':');
+
+					final SyncClient client = SyncClient.create(address.substring(0, separator),
+							Integer.parseInt(address.substring(separator + 1)), eventLoopGroup, options, meterRegistry,
+							properties.getService());
+					client.setLogin(properties.getLogin());
+					client.setPassword(properties.getPassword());
+
+					endpoints[i] = new Endpoint(client, properties.getEjectAfterFailures(), properties.getEjectionTime(),
+							meterRegistry, properties.getService());
+					connects[i] = endpoints[i].connect(Math.max(1, properties.getConnections()), properties.getMaxConnections(),
+							properties.getPoolGrowThreshold(), properties.getPoolGrowWriteLatency(), properties.getPoolIdleTimeout());
+				}
 
-				final int workers = properties.getConnections();
+				final ChannelSupplier<Endpoint> supplier = new ChannelSupplier<>(endpoints);
+				allEndpoints = supplier;
 
-				if (workers > 0) {
-					final ClientConnection[] connections = new ClientConnection[workers];
-					for (int i = 0; i < workers; i++) {
-						final ClientConnection clientConnection = client.connect();
-						connections[i] = clientConnection;
-					}
-
-					channels = new ChannelSupplier<>(connections);
-				} else {
-					final ClientConnection clientConnection = client.connect();
-					channels = new ChannelSupplier<>(new ClientConnection[]{clientConnection});
-				}
+				// the service is usable once any endpoint is connected, others join the balancing as they connect
+				endpointsFuture = CompletableFuture.anyOf(connects)
+						.thenApply(v -> {
+							this.endpoints = supplier;
+							return supplier;
+						});
 			}
+
+			return endpointsFuture;
 		}
 
-		private void checkInitOrCreate() {
-			if (!inititalized.get()) {
-				if (StringUtils.isEmpty(host) && port == 0) {
-					throw new IllegalStateException("Service [" + properties.getService() + "] " +
-							"not initialized. Wait fully context initialization or manually create it.");
-				}
+		/**
+		 * @throws RemoteServiceConnectionException if no endpoint of the service is connected yet, the connections
+		 *                                          are opened in the background and the caller is never blocked on them
+		 */
+		private ChannelSupplier<Endpoint> checkInitOrCreate() {
+			final ChannelSupplier<Endpoint> endpoints = this.endpoints;
+			if (endpoints != null) {
+				return endpoints;
+			}
+
+			if (endpointsFuture == null && StringUtils.isEmpty(host) && port == 0 && properties.getEndpoints().isEmpty()) {
+				throw new IllegalStateException("Service [" + properties.getService() + "] " +
+						"not initialized. Wait fully context initialization or manually create it.");
+			}
 
-				createChannels();
+			final ChannelSupplier<Endpoint> connected = createChannelsAsync().getNow(null);
+			if (connected == null) {
+				throw new RemoteServiceConnectionException("Service [" + properties.getService() + "] has no connected endpoint yet");
 			}
+
+			return connected;
 		}
 
 		public ClusterSyncLock getOrCreateLock(MeterRegistry meterRegistry, String entry) {
-			checkInitOrCreate();
+			// locks are held by the lock registry of a single server, so all of them go to the first endpoint
+			final ConnectionPool pool = checkInitOrCreate().getAll()[0].getPool();
 
 			return (ClusterSyncLock) locks.computeIfAbsent(entry, v -> {
 				final long lockLeaseTimeout = properties.getLockLeaseTimeout();
-				return new ClusterSyncLock(meterRegistry, entry, channels, lockLeaseTimeout);
+				return new ClusterSyncLock(meterRegistry, entry, pool.getChannels(), lockLeaseTimeout);
 			});
 		}
 
 		public ClientConnection getConnection() {
-			checkInitOrCreate();
-			return channels.get();
+			final ChannelSupplier<Endpoint> endpoints = checkInitOrCreate();
+
+			Endpoint endpoint = endpoints.get();
+			if (!endpoint.isConnected()) {
+				// none is active, an endpoint with established connections is still preferred to one never connected
+				for (Endpoint candidate : endpoints.getAll()) {
+					if (candidate.isConnected()) {
+						endpoint = candidate;
+						break;
+					}
+				}
+			}
+
+			return endpoint.getConnection();
+		}
+
+		/**
+		 * @return a connection of another endpoint, otherwise another connection of the endpoint of {@code primary},
+		 * null if there is none
+		 */
+		private ClientConnection getOtherConnection(ClientConnection primary) {
+			final ChannelSupplier<Endpoint> endpoints = checkInitOrCreate();
+
+			Endpoint own = null;
+			for (Endpoint endpoint : endpoints.getAll()) {
+				if (endpoint.getClient() == primary.getSyncClient()) {
+					own = endpoint;
+					break;
+				}
+			}
+
+			final Endpoint other = endpoints.getOther(own);
+			final ClientConnection connection = other != null ? other.getOtherConnection(null) : null;
+			if (connection != null || own == null) {
+				return connection;
+			}
+
+			return own.getOtherConnection(primary);
+		}
+
+		/**
+		 * Sends a copy of the request on another connection when the first one is not answered within the hedge delay,
+		 * the first successful reply completes the call, the call fails when all sent copies fail. The copy is not
+		 * sent when there is no other connection, and it is given the time left until the deadline of the request.
+		 */
+		public CompletableFuture<Object> executeHedged(TargetClassMethodMetadata metadata, DefaultRequest request) {
+			hedgeBudget.onRequest();
+
+			final CompletableFuture<Object> result = new CompletableFuture<>();
+			final AtomicInteger pending = new AtomicInteger(1);
+
+			final ClientConnection primary = getConnection();
+			// sent before the hedge is scheduled, so the copy sees the deadline of the request
+			final CompletableFuture<Object> first = primary.async(request);
+
+			final ScheduledFuture<?> hedgeFuture = primary.getSyncClient().getEventLoopGroup().schedule(() -> {
+				if (result.isDone()) {
+					return;
+				}
+
+				final long deadline = request.getDeadline();
+				final long remaining = deadline > 0 ? deadline - System.currentTimeMillis() : 0;
+				if (deadline > 0 && remaining <= 0 || !hedgeBudget.tryWithdraw()) {
+					return;
+				}
+
+				final ClientConnection secondary = getOtherConnection(primary);
+				if (secondary == null) {
+					hedgeBudget.refund();
+					return;
+				}
+
+				if (metadata.getHedgeCounter() != null) {
+					metadata.getHedgeCounter().increment();
+				}
+
+				pending.incrementAndGet();
+				final DefaultRequest copyRequest = new DefaultRequest(request.getServiceClass(), request.getMethod(), request.getArgs(), request.isVoidType());
+				copyRequest.setTimeout(remaining);
+
+				final CompletableFuture<Object> copy = secondary.async(copyRequest);
+				// the losing copy is cancelled on the server
+				result.whenComplete((res, e) -> copy.cancel(false));
+
+				copy.whenComplete((res, e) -> {
+					if (e == null) {
+						if (result.complete(res) && metadata.getHedgeWinCounter() != null) {
+							metadata.getHedgeWinCounter().increment();
+						}
+					} else if (pending.decrementAndGet() == 0) {
+						result.completeExceptionally(e);
+					}
+				});
+			}, metadata.getHedgeDelay(), TimeUnit.MILLISECONDS);
+
+			result.whenComplete((res, e) -> first.cancel(false));
+
+			first.whenComplete((res, e) -> {
+				if (e == null) {
+					hedgeFuture.cancel(false);
+					result.complete(res);
+				} else if (pending.decrementAndGet() == 0) {
+					hedgeFuture.cancel(false);
+					result.completeExceptionally(e);
+				}
+			});
+
+			return result;
 		}
 	}
 }
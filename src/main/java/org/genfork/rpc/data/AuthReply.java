@@ -2,6 +2,7 @@ package org.genfork.rpc.data;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.genfork.rpc.codec.Protocol;
 
 /**
  * @author: GenCloud
@@ -10,11 +11,13 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 public class AuthReply implements RequestMessage {
-	private String requestId;
+	private transient long requestId;
 	private boolean success;
 	private String reason;
 
-	public AuthReply(String requestId, boolean success, String reason) {
+	private transient Protocol protocol;
+
+	public AuthReply(long requestId, boolean success, String reason) {
 		this.requestId = requestId;
 		this.success = success;
 		this.reason = reason;
@@ -2,6 +2,7 @@ package org.genfork.rpc.data;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.genfork.rpc.codec.Protocol;
 
 /**
  * @author: GenCloud
@@ -10,12 +11,14 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 public class AuthRequest implements RequestMessage {
-	private String requestId, login, password;
+	private transient long requestId;
+	private String login, password;
 
-	private long deadline = -1;
+	private transient long deadline = -1;
 
-	public AuthRequest(String requestId, String login, String password) {
-		this.requestId = requestId;
+	private transient Protocol protocol;
+
+	public AuthRequest(String login, String password) {
 		this.login = login;
 		this.password = password;
 	}
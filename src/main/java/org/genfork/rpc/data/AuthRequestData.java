@@ -21,10 +21,15 @@ public class AuthRequestData<R> implements IRequest {
 	}
 
 	@Override
-	public String requestId() {
+	public long requestId() {
 		return authRequest.getRequestId();
 	}
 
+	@Override
+	public long deadline() {
+		return authRequest.getDeadline();
+	}
+
 	@Override
 	public boolean tryFailure(Throwable cause) {
 		return promise.completeExceptionally(cause);
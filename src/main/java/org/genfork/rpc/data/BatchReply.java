@@ -0,0 +1,25 @@
+package org.genfork.rpc.data;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Results of the {@link BatchRequest} entries which expect a result, in the order of the request ids.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Data
+@NoArgsConstructor
+public class BatchReply implements RequestMessage {
+	private transient long requestId;
+
+	private long[] requestIds;
+	private Object[] results;
+
+	public BatchReply(long requestId, long[] requestIds, Object[] results) {
+		this.requestId = requestId;
+		this.requestIds = requestIds;
+		this.results = results;
+	}
+}
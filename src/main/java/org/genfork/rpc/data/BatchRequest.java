@@ -0,0 +1,40 @@
+package org.genfork.rpc.data;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Independent invocations packed into one frame, the entries are described by the parallel arrays.
+ * Requests addressed by method id are sent without the service class and method name.
+ * The deadline of an entry is sent as the milliseconds it ends before the deadline of the batch,
+ * so it follows the batch deadline through the clock conversion of the receiver.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Data
+@NoArgsConstructor
+public class BatchRequest implements RequestMessage {
+	private transient long requestId;
+	private transient long deadline = -1;
+
+	private long[] requestIds;
+	private int[] methodIds;
+	private boolean[] noResult;
+	// -1 - the entry has no deadline
+	private long[] deadlines;
+	private DefaultRequest[] requests;
+
+	public BatchRequest(int size) {
+		requestIds = new long[size];
+		methodIds = new int[size];
+		noResult = new boolean[size];
+		deadlines = new long[size];
+		requests = new DefaultRequest[size];
+	}
+
+	public long getDeadline(int index) {
+		final long offset = deadlines[index];
+		return offset == -1 || deadline == -1 ? -1 : deadline - offset;
+	}
+}
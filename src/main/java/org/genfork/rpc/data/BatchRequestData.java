@@ -0,0 +1,61 @@
+package org.genfork.rpc.data;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Getter
+public class BatchRequestData implements IRequest {
+	private final long requestId;
+	private final long deadline;
+	private final List<DefaultRequestData<Object>> requests;
+
+	public BatchRequestData(long requestId, long deadline, List<DefaultRequestData<Object>> requests) {
+		this.requestId = requestId;
+		this.deadline = deadline;
+		this.requests = requests;
+	}
+
+	@Override
+	public long requestId() {
+		return requestId;
+	}
+
+	@Override
+	public long deadline() {
+		return deadline;
+	}
+
+	@Override
+	public boolean tryFailure(Throwable cause) {
+		boolean failed = false;
+		for (DefaultRequestData<Object> request : requests) {
+			failed |= request.tryFailure(cause);
+		}
+
+		return failed;
+	}
+
+	@Override
+	public boolean isExecuted() {
+		for (DefaultRequestData<Object> request : requests) {
+			if (!request.isExecuted()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchRequestData{" +
+				"requestId=" + requestId +
+				", requests=" + requests.size() +
+				'}';
+	}
+}
@@ -0,0 +1,21 @@
+package org.genfork.rpc.data;
+
+import lombok.Data;
+
+/**
+ * Tells the server that the client does not wait for the reply of the request anymore,
+ * sent in a header-only {@link org.genfork.rpc.codec.Frame#CANCEL} frame.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Data
+public class CancelRequest implements RequestMessage {
+	private transient long requestId;
+
+	public CancelRequest() {}
+
+	public CancelRequest(long requestId) {
+		this.requestId = requestId;
+	}
+}
@@ -10,10 +10,10 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 public class DefaultReply implements RequestMessage {
-	private String requestId;
+	private transient long requestId;
 	private Object result;
 
-	public DefaultReply(String requestId, Object result) {
+	public DefaultReply(long requestId, Object result) {
 		this.requestId = requestId;
 		this.result = result;
 	}
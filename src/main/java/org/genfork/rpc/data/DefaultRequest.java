@@ -14,25 +14,44 @@ import java.lang.reflect.Method;
 @Data
 @NoArgsConstructor
 public class DefaultRequest implements RequestMessage {
-	private String requestId;
+	private transient long requestId;
 	private Class<?> serviceClass;
 	private String methodName;
 
+	private transient Method method;
+	private transient int methodId;
+
 	private Object[] args;
 	private transient boolean voidType;
 
-	private boolean noResult;
+	private transient boolean noResult;
+
+	private transient long deadline = -1;
 
-	private long deadline = -1;
+	// milliseconds to wait for the reply, 0 - timeout of the client
+	private transient long timeout;
 
-	public DefaultRequest(String requestId, Class<?> serviceClass, Method method, Object[] args, boolean voidType) {
-		this.requestId = requestId;
+	public DefaultRequest(Class<?> serviceClass, Method method, Object[] args, boolean voidType) {
 		this.serviceClass = serviceClass;
 		this.methodName = method.getName();
+		this.method = method;
 		this.args = args;
 		this.voidType = voidType;
 	}
 
+	/**
+	 * Copy of the request for the wire when the method is addressed by id.
+	 */
+	public DefaultRequest withoutTarget() {
+		final DefaultRequest request = new DefaultRequest();
+		request.requestId = requestId;
+		request.args = args;
+		request.voidType = voidType;
+		request.noResult = noResult;
+		request.deadline = deadline;
+		return request;
+	}
+
 	public Object invoke(MeterRegistry meterRegistry, Object service) throws Throwable {
 		return SyncServiceMethodMetadata.invokeCached(meterRegistry, service, methodName, args);
 	}
@@ -21,10 +21,15 @@ public class DefaultRequestData<R> implements IRequest {
 	}
 
 	@Override
-	public String requestId() {
+	public long requestId() {
 		return defaultRequest.getRequestId();
 	}
 
+	@Override
+	public long deadline() {
+		return defaultRequest.getDeadline();
+	}
+
 	@Override
 	public boolean tryFailure(Throwable cause) {
 		return promise.completeExceptionally(cause);
@@ -0,0 +1,25 @@
+package org.genfork.rpc.data;
+
+import lombok.Data;
+
+/**
+ * Ping of the client or pong of the server, sent in a header-only {@link org.genfork.rpc.codec.Frame#PING}
+ * or {@link org.genfork.rpc.codec.Frame#PONG} frame. The client puts the send time into the request id,
+ * the server echoes it back.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Data
+public class Heartbeat implements RequestMessage {
+	private transient long requestId;
+
+	private transient boolean pong;
+
+	public Heartbeat() {}
+
+	public Heartbeat(long requestId, boolean pong) {
+		this.requestId = requestId;
+		this.pong = pong;
+	}
+}
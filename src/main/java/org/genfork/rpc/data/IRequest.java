@@ -5,7 +5,12 @@ package org.genfork.rpc.data;
  * @date: 2023/01
  */
 public interface IRequest {
-	String requestId();
+	long requestId();
+
+	/**
+	 * @return time in millis the request fails with a timeout at, -1 if never
+	 */
+	long deadline();
 
 	boolean tryFailure(Throwable cause);
 
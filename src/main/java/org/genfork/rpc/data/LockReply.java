@@ -12,7 +12,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 public class LockReply implements RequestMessage {
-	private String requestId;
+	private transient long requestId;
 	private long threadId;
 	private String entry;
 	private LockAcquireType type;
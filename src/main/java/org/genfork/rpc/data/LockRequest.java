@@ -10,7 +10,7 @@ import lombok.Data;
 public class LockRequest implements RequestMessage {
 	public static final long DEFAULT_LEASE_TIME = 300_000L;
 
-	private String requestId;
+	private transient long requestId;
 
 	private LockRequestType lockRequestType;
 
@@ -24,8 +24,7 @@ public class LockRequest implements RequestMessage {
 
 	public LockRequest() {}
 
-	public LockRequest(String requestId, LockRequestType lockRequestType, long threadId, String entry, long waitTime, long leaseTime) {
-		this.requestId = requestId;
+	public LockRequest(LockRequestType lockRequestType, long threadId, String entry, long waitTime, long leaseTime) {
 		this.lockRequestType = lockRequestType;
 		this.threadId = threadId;
 		this.entry = entry;
@@ -14,17 +14,25 @@ import java.util.concurrent.CompletionException;
 public class LockRequestData<R> implements IRequest {
 	private final CompletableFuture<R> promise;
 	private final LockRequest lockRequest;
+	// not transferred, the lock request has no deadline on the server
+	private final long deadline;
 
-	public LockRequestData(CompletableFuture<R> promise, LockRequest lockRequest) {
+	public LockRequestData(CompletableFuture<R> promise, LockRequest lockRequest, long deadline) {
 		this.promise = promise;
 		this.lockRequest = lockRequest;
+		this.deadline = deadline;
 	}
 
 	@Override
-	public String requestId() {
+	public long requestId() {
 		return lockRequest.getRequestId();
 	}
 
+	@Override
+	public long deadline() {
+		return deadline;
+	}
+
 	@Override
 	public boolean tryFailure(Throwable cause) {
 		return promise.completeExceptionally(cause);
@@ -3,8 +3,20 @@ package org.genfork.rpc.data;
 import java.io.Serializable;
 
 /**
+ * Request id and deadline are transferred in the {@link org.genfork.rpc.codec.Frame} header, not in the body.
+ *
  * @author: GenCloud
  * @date: 2023/02
  */
 public interface RequestMessage extends Serializable {
+	long getRequestId();
+
+	void setRequestId(long requestId);
+
+	default long getDeadline() {
+		return -1;
+	}
+
+	default void setDeadline(long deadline) {
+	}
 }
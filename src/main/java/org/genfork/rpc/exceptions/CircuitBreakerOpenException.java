@@ -0,0 +1,13 @@
+package org.genfork.rpc.exceptions;
+
+/**
+ * Request is not sent, the circuit breaker of the endpoint is open.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public class CircuitBreakerOpenException extends RemoteException {
+	public CircuitBreakerOpenException(String message) {
+		super(message);
+	}
+}
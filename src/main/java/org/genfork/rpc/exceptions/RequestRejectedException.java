@@ -0,0 +1,13 @@
+package org.genfork.rpc.exceptions;
+
+/**
+ * Request is not sent, the connection is over its in-flight limit and the queue of waiting requests is full.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public class RequestRejectedException extends RemoteException {
+	public RequestRejectedException(String message) {
+		super(message);
+	}
+}
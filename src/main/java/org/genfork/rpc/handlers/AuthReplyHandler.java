@@ -2,23 +2,30 @@ package org.genfork.rpc.handlers;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.collection.LongObjectMap;
 import lombok.extern.slf4j.Slf4j;
+import org.genfork.rpc.SyncServiceOptions;
+import org.genfork.rpc.codec.Protocol;
 import org.genfork.rpc.data.AuthReply;
 import org.genfork.rpc.data.AuthRequestData;
 import org.genfork.rpc.data.IRequest;
 import org.genfork.rpc.data.RequestHolder;
 import org.genfork.rpc.exceptions.AuthenticationException;
 
-import java.util.Map;
-
 /**
  * @author: GenCloud
  * @date: 2023/02
  */
 @Slf4j
 public class AuthReplyHandler extends SimpleChannelInboundHandler<AuthReply> {
-	private RequestHolder getMessage(String requestId, ChannelHandlerContext ctx) {
-		final Map<String, RequestHolder> map = ctx.channel().attr(MessageQueueHandler.REQUEST_MAP).get();
+	private final SyncServiceOptions options;
+
+	public AuthReplyHandler(SyncServiceOptions options) {
+		this.options = options;
+	}
+
+	private RequestHolder getMessage(long requestId, ChannelHandlerContext ctx) {
+		final LongObjectMap<RequestHolder> map = ctx.channel().attr(MessageQueueHandler.REQUEST_MAP).get();
 		return map.remove(requestId);
 	}
 
@@ -43,6 +50,13 @@ public class AuthReplyHandler extends SimpleChannelInboundHandler<AuthReply> {
 		@SuppressWarnings("unchecked")
 		final AuthRequestData<AuthReply> requestData = (AuthRequestData<AuthReply>) requestMessage;
 		if (authReply.isSuccess()) {
+			final Protocol protocol = authReply.getProtocol();
+			if (protocol != null) {
+				ctx.channel().attr(Protocol.PROTOCOL).set(protocol.withCompression(options.getCompression(), options.getCompressionThreshold()));
+			} else {
+				log.debug("Server {} does not negotiate the protocol, the channel keeps the legacy framing", ctx.channel().remoteAddress());
+			}
+
 			requestData.getPromise().complete(authReply);
 		} else {
 			final AuthenticationException exception = new AuthenticationException(authReply.getReason());
@@ -5,6 +5,8 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.util.AttributeKey;
 import org.apache.commons.lang3.StringUtils;
+import org.genfork.rpc.SyncServiceProvider;
+import org.genfork.rpc.codec.Protocol;
 import org.genfork.rpc.data.AuthReply;
 import org.genfork.rpc.data.AuthRequest;
 
@@ -15,15 +17,17 @@ import org.genfork.rpc.data.AuthRequest;
 public class AuthRequestHandler extends SimpleChannelInboundHandler<AuthRequest> {
 	public static final AttributeKey<Boolean> AUTH_CHECK = AttributeKey.valueOf("AUTH_CHECK");
 	private final String serverLogin, serverPassword;
+	private final Protocol protocol;
 
-	public AuthRequestHandler(String serverLogin, String serverPassword) {
+	public AuthRequestHandler(String serverLogin, String serverPassword, Protocol protocol) {
 		this.serverLogin= serverLogin;
 		this.serverPassword = serverPassword;
+		this.protocol = protocol;
 	}
 
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, AuthRequest authRequest) throws Exception {
-		final String requestId = authRequest.getRequestId();
+		final long requestId = authRequest.getRequestId();
 
 		final Channel channel = ctx.channel();
 
@@ -34,7 +38,7 @@ public class AuthRequestHandler extends SimpleChannelInboundHandler<AuthRequest>
 			if (serverLogin.equals(login) && serverPassword.equals(password)) {
 				channel.attr(AUTH_CHECK).set(true);
 
-				channel.writeAndFlush(new AuthReply(requestId, true, null));
+				accept(channel, authRequest);
 			} else {
 				channel.attr(AUTH_CHECK).set(false);
 
@@ -43,8 +47,25 @@ public class AuthRequestHandler extends SimpleChannelInboundHandler<AuthRequest>
 		} else {
 			channel.attr(AUTH_CHECK).set(true);
 
-			final AuthReply reply = new AuthReply(requestId, true, null);
+			accept(channel, authRequest);
+		}
+	}
+
+	private void accept(Channel channel, AuthRequest authRequest) {
+		final AuthReply reply = new AuthReply(authRequest.getRequestId(), true, null);
+
+		final Protocol remote = authRequest.getProtocol();
+		if (remote == null) {
+			// older client, the channel keeps the legacy framing
 			channel.writeAndFlush(reply);
+			return;
 		}
+
+		final Protocol agreed = protocol.negotiate(remote, SyncServiceProvider.getInstance().getMethodTable());
+		reply.setProtocol(agreed);
+
+		// reply still goes out with the current framing, the channel switches right after it is encoded
+		channel.writeAndFlush(reply);
+		channel.attr(Protocol.PROTOCOL).set(agreed);
 	}
 }
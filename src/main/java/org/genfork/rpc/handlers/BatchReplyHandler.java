@@ -0,0 +1,29 @@
+package org.genfork.rpc.handlers;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import org.genfork.rpc.data.BatchReply;
+import org.genfork.rpc.data.DefaultReply;
+
+/**
+ * Splits the {@link BatchReply} into replies of the single requests, which complete the callers
+ * in the {@link DefaultReplyHandler}.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@ChannelHandler.Sharable
+public class BatchReplyHandler extends SimpleChannelInboundHandler<BatchReply> {
+	public static final BatchReplyHandler INSTANCE = new BatchReplyHandler();
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, BatchReply batchReply) {
+		final long[] requestIds = batchReply.getRequestIds();
+		final Object[] results = batchReply.getResults();
+
+		for (int i = 0; i < requestIds.length; i++) {
+			ctx.fireChannelRead(new DefaultReply(requestIds[i], results[i]));
+		}
+	}
+}
@@ -2,14 +2,13 @@ package org.genfork.rpc.handlers;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
-import org.apache.commons.lang3.StringUtils;
 import org.genfork.rpc.ClientConnection;
 import org.genfork.rpc.SyncClient;
+import org.genfork.rpc.codec.Protocol;
 import org.genfork.rpc.data.AuthReply;
 import org.genfork.rpc.data.AuthRequest;
 
 import javax.naming.AuthenticationException;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -40,30 +39,27 @@ public class ConnectionHandler extends ChannelInboundHandlerAdapter {
 		final String clientLogin = syncClient.getLogin();
 		final String clientPassword = syncClient.getPassword();
 
-		if (StringUtils.isEmpty(clientLogin) && StringUtils.isEmpty(clientPassword)) {
-			ctx.fireChannelActive();
-			connectionPromise.complete(connection);
-		} else {
-			connection
-					.async(
-							new AuthRequest(UUID.randomUUID().toString(), clientLogin, clientPassword)
-					)
-					.whenComplete((res, th) -> {
-						if (th != null) {
-							connection.closeAsync();
-							connectionPromise.completeExceptionally(th);
-							return;
-						}
+		final AuthRequest authRequest = new AuthRequest(clientLogin, clientPassword);
+		authRequest.setProtocol(Protocol.supported(syncClient.getOptions().getMaxFrameLength())
+				.withCodec(syncClient.getOptions().getCodec()));
 
-						final AuthReply reply = (AuthReply) res;
-						if (!reply.isSuccess()) {
-							connection.closeAsync();
-							connectionPromise.completeExceptionally(new AuthenticationException(reply.getReason()));
-						} else {
-							ctx.fireChannelActive();
-							connectionPromise.complete(connection);
-						}
-					});
-		}
+		connection
+				.async(authRequest)
+				.whenComplete((res, th) -> {
+					if (th != null) {
+						connection.closeAsync();
+						connectionPromise.completeExceptionally(th);
+						return;
+					}
+
+					final AuthReply reply = (AuthReply) res;
+					if (!reply.isSuccess()) {
+						connection.closeAsync();
+						connectionPromise.completeExceptionally(new AuthenticationException(reply.getReason()));
+					} else {
+						ctx.fireChannelActive();
+						connectionPromise.complete(connection);
+					}
+				});
 	}
 }
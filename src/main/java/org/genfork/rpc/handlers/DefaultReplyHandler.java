@@ -2,22 +2,21 @@ package org.genfork.rpc.handlers;
 
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.collection.LongObjectMap;
 import lombok.extern.slf4j.Slf4j;
 import org.genfork.rpc.data.DefaultReply;
 import org.genfork.rpc.data.DefaultRequestData;
 import org.genfork.rpc.data.IRequest;
 import org.genfork.rpc.data.RequestHolder;
 
-import java.util.Map;
-
 /**
  * @author: GenCloud
  * @date: 2023/01
  */
 @Slf4j
 public class DefaultReplyHandler extends SimpleChannelInboundHandler<DefaultReply> {
-	private RequestHolder getMessage(String requestId, ChannelHandlerContext ctx) {
-		final Map<String, RequestHolder> map = ctx.channel().attr(MessageQueueHandler.REQUEST_MAP).get();
+	private RequestHolder getMessage(long requestId, ChannelHandlerContext ctx) {
+		final LongObjectMap<RequestHolder> map = ctx.channel().attr(MessageQueueHandler.REQUEST_MAP).get();
 		return map.remove(requestId);
 	}
 
@@ -7,27 +7,37 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.cliffc.high_scale_lib.NonBlockingHashMapLong;
+import org.genfork.rpc.CancellationSignal;
 import org.genfork.rpc.SyncServiceProvider;
-import org.genfork.rpc.data.AuthReply;
-import org.genfork.rpc.data.DefaultReply;
-import org.genfork.rpc.data.DefaultRequest;
+import org.genfork.rpc.SyncServiceProvider.BoundMethod;
+import org.genfork.rpc.codec.Protocol;
+import org.genfork.rpc.data.*;
 import org.genfork.rpc.exceptions.BindException;
 import org.genfork.rpc.exceptions.RemoteException;
-import org.genfork.rpc.exceptions.RequestTimeoutException;
+import org.genfork.rpc.exceptions.RemoteServiceTimeoutException;
 import org.genfork.rpc.exceptions.ServiceRemoteException;
-import org.springframework.lang.Nullable;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Invokes single and batched requests, a {@link BatchRequest} is answered with one {@link BatchReply}
+ * once all of its entries are completed.
+ * Requests completed asynchronously are tracked by id while the channel negotiated {@link Protocol#CANCELLATION},
+ * a {@link CancelRequest} cancels their {@link CancellationSignal} and suppresses the reply.
+ * Methods are invoked on the event loop, a synchronous method is not tracked and runs to its end.
+ *
  * @author: GenCloud
  * @date: 2023/01
  */
 @Slf4j
-public class DefaultRequestHandler extends SimpleChannelInboundHandler<DefaultRequest> {
+public class DefaultRequestHandler extends SimpleChannelInboundHandler<RequestMessage> {
 	private final boolean checkCredentials;
 	private final MeterRegistry meterRegistry;
 
+	private final NonBlockingHashMapLong<CancellationSignal> running = new NonBlockingHashMapLong<>();
+
 	public DefaultRequestHandler(String login, String password, MeterRegistry meterRegistry) {
 		this.meterRegistry = meterRegistry;
 
@@ -35,8 +45,24 @@ public class DefaultRequestHandler extends SimpleChannelInboundHandler<DefaultRe
 	}
 
 	@Override
-	protected void channelRead0(ChannelHandlerContext ctx, DefaultRequest defaultRequest) throws Exception {
-		final String requestId = defaultRequest.getRequestId();
+	public boolean acceptInboundMessage(Object msg) {
+		return msg instanceof DefaultRequest || msg instanceof BatchRequest || msg instanceof CancelRequest;
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		// replies can not be delivered anymore
+		for (CancellationSignal signal : running.values()) {
+			signal.cancel();
+		}
+
+		running.clear();
+		super.channelInactive(ctx);
+	}
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, RequestMessage message) throws Exception {
+		final long requestId = message.getRequestId();
 
 		final Channel channel = ctx.channel();
 		final Boolean authed = channel.attr(AuthRequestHandler.AUTH_CHECK).get();
@@ -46,43 +72,48 @@ public class DefaultRequestHandler extends SimpleChannelInboundHandler<DefaultRe
 			return;
 		}
 
-		final boolean noResult = defaultRequest.isNoResult();
-
-		Object result;
-		try {
-			final long deadline = defaultRequest.getDeadline();
-			if (deadline != -1) {
-				final long currentTime = System.currentTimeMillis();
-				if (currentTime > deadline) {
-					throw new RequestTimeoutException("Request " + requestId + " is expired. Skip.");
-				}
+		if (message instanceof CancelRequest) {
+			final CancellationSignal signal = running.remove(requestId);
+			if (signal != null) {
+				log.debug("Request {} is cancelled by the client.", requestId);
+				signal.cancel();
 			}
 
-			final Class<?> svcClass = defaultRequest.getServiceClass();
-			final Object service = SyncServiceProvider.getInstance().getService(svcClass);
-			if (service == null) {
-				result = new BindException("Service " + svcClass.getName() + " is not provided");
-			} else {
-				result = defaultRequest.invoke(meterRegistry, service);
-			}
-		} catch (Throwable e) {
-			if (e instanceof RequestTimeoutException) {
+			return;
+		}
+
+		final long deadline = message.getDeadline();
+		if (deadline != -1) {
+			final long currentTime = System.currentTimeMillis();
+			if (currentTime > deadline) {
+				log.debug("Request {} is expired. Skip.", requestId);
 				return;
 			}
+		}
 
-			if (e instanceof RemoteException) {
-				result = e;
-			} else {
-				result = new ServiceRemoteException(e);
-			}
+		final boolean cancellable = Protocol.get(channel).isEnabled(Protocol.CANCELLATION);
+		if (message instanceof BatchRequest batchRequest) {
+			executeBatch(channel, batchRequest, cancellable);
+			return;
 		}
 
-		if (noResult) {
+		final DefaultRequest defaultRequest = (DefaultRequest) message;
+		final CancellationSignal signal = new CancellationSignal(deadline);
+		final Object result = execute(defaultRequest, signal);
+
+		if (defaultRequest.isNoResult()) {
 			return;
 		}
 
 		if (result instanceof CompletableFuture<?> future) {
+			final boolean tracked = cancellable && track(requestId, signal, future);
+
 			future.whenComplete((res, th) -> {
+				if (tracked && running.remove(requestId) == null) {
+					// cancelled by the client, nobody waits for the reply
+					return;
+				}
+
 				DefaultReply defaultReply;
 				if (th != null) {
 					defaultReply = new DefaultReply(requestId, th);
@@ -97,4 +128,118 @@ public class DefaultRequestHandler extends SimpleChannelInboundHandler<DefaultRe
 			channel.writeAndFlush(defaultReply, channel.voidPromise());
 		}
 	}
+
+	private boolean track(long requestId, CancellationSignal signal, CompletableFuture<?> future) {
+		if (future.isDone()) {
+			return false;
+		}
+
+		running.put(requestId, signal);
+		signal.onCancel(() -> future.cancel(false));
+		return true;
+	}
+
+	private void executeBatch(Channel channel, BatchRequest batchRequest, boolean cancellable) {
+		final DefaultRequest[] requests = batchRequest.getRequests();
+
+		int resultCount = 0;
+		for (boolean noResult : batchRequest.getNoResult()) {
+			if (!noResult) {
+				resultCount++;
+			}
+		}
+
+		final long[] requestIds = new long[resultCount];
+		final Object[] results = new Object[resultCount];
+
+		// one extra count is held until all entries are invoked
+		final AtomicInteger pending = new AtomicInteger(resultCount + 1);
+		final Runnable reply = () -> {
+			if (pending.decrementAndGet() == 0 && results.length > 0) {
+				channel.writeAndFlush(new BatchReply(batchRequest.getRequestId(), requestIds, results), channel.voidPromise());
+			}
+		};
+
+		int index = 0;
+		for (int i = 0; i < requests.length; i++) {
+			final DefaultRequest defaultRequest = requests[i];
+			defaultRequest.setRequestId(batchRequest.getRequestIds()[i]);
+			defaultRequest.setMethodId(batchRequest.getMethodIds()[i]);
+			defaultRequest.setNoResult(batchRequest.getNoResult()[i]);
+			defaultRequest.setDeadline(batchRequest.getDeadline(i));
+
+			final long deadline = defaultRequest.getDeadline();
+			if (deadline != -1 && System.currentTimeMillis() > deadline) {
+				log.debug("Request {} of batch {} is expired. Skip.", defaultRequest.getRequestId(), batchRequest.getRequestId());
+				if (!defaultRequest.isNoResult()) {
+					final int resultIndex = index++;
+					requestIds[resultIndex] = defaultRequest.getRequestId();
+					// the client has failed the call already, the slot only completes the reply
+					results[resultIndex] = new RemoteServiceTimeoutException("Request is expired");
+					reply.run();
+				}
+
+				continue;
+			}
+
+			final CancellationSignal signal = new CancellationSignal(deadline);
+			final Object result = execute(defaultRequest, signal);
+			if (defaultRequest.isNoResult()) {
+				continue;
+			}
+
+			final int resultIndex = index++;
+			final long requestId = defaultRequest.getRequestId();
+			requestIds[resultIndex] = requestId;
+
+			if (result instanceof CompletableFuture<?> future) {
+				final boolean tracked = cancellable && track(requestId, signal, future);
+
+				future.whenComplete((res, th) -> {
+					if (tracked) {
+						running.remove(requestId);
+					}
+
+					results[resultIndex] = th != null ? th : res;
+					reply.run();
+				});
+			} else {
+				results[resultIndex] = result;
+				reply.run();
+			}
+		}
+
+		reply.run();
+	}
+
+	private Object execute(DefaultRequest defaultRequest, CancellationSignal signal) {
+		CancellationSignal.set(signal);
+		try {
+			final int methodId = defaultRequest.getMethodId();
+			if (methodId > 0) {
+				final BoundMethod method = SyncServiceProvider.getInstance().getMethod(methodId);
+				if (method == null) {
+					return new BindException("Method " + methodId + " is not provided");
+				}
+
+				return method.invoke(meterRegistry, defaultRequest.getArgs());
+			}
+
+			final Class<?> svcClass = defaultRequest.getServiceClass();
+			final Object service = SyncServiceProvider.getInstance().getService(svcClass);
+			if (service == null) {
+				return new BindException("Service " + svcClass.getName() + " is not provided");
+			}
+
+			return defaultRequest.invoke(meterRegistry, service);
+		} catch (Throwable e) {
+			if (e instanceof RemoteException) {
+				return e;
+			}
+
+			return new ServiceRemoteException(e);
+		} finally {
+			CancellationSignal.clear();
+		}
+	}
 }
@@ -0,0 +1,56 @@
+package org.genfork.rpc.handlers;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import lombok.extern.slf4j.Slf4j;
+import org.genfork.rpc.codec.Frame;
+
+import java.util.List;
+
+/**
+ * Drops request frames whose deadline has already passed, using the frame header only,
+ * so expired requests are never deserialized. The client fails such requests by its own timeout.
+ * With {@link org.genfork.rpc.codec.Protocol#RELATIVE_DEADLINES} the deadline is already local,
+ * it is converted by the {@link org.genfork.rpc.codec.FrameDecoder} at the time the frame was read.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Slf4j
+@ChannelHandler.Sharable
+public class ExpiredRequestFilter extends MessageToMessageDecoder<ByteBuf> {
+	private final Counter expiredCounter;
+
+	public ExpiredRequestFilter(MeterRegistry meterRegistry) {
+		if (meterRegistry != null) {
+			expiredCounter = Counter.builder("sync-server-expired-requests")
+					.description("Requests dropped before deserialization because of the expired deadline")
+					.register(meterRegistry);
+		} else {
+			expiredCounter = null;
+		}
+	}
+
+	@Override
+	protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+		if (msg.readableBytes() >= Frame.HEADER_LENGTH) {
+			final short type = msg.getUnsignedByte(msg.readerIndex());
+			final long deadline = Frame.getDeadline(msg);
+
+			if ((type == Frame.DEFAULT || type == Frame.INDEXED || type == Frame.BATCH) && deadline != -1 && System.currentTimeMillis() > deadline) {
+				if (expiredCounter != null) {
+					expiredCounter.increment();
+				}
+
+				log.debug("Request {} is expired. Skip.", Frame.getRequestId(msg));
+				return;
+			}
+		}
+
+		out.add(msg.retain());
+	}
+}
@@ -0,0 +1,155 @@
+package org.genfork.rpc.handlers;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.Future;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consolidates flushes of the messages written to the channel according to the {@link FlushMode}
+ * and records the number of messages per flush.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public class FlushBatchingHandler extends ChannelDuplexHandler {
+	private final FlushMode mode;
+	private final int maxMessages;
+	private final long windowMicros;
+	private final DistributionSummary messagesPerFlush;
+
+	private ChannelHandlerContext ctx;
+	private Runnable flushTask;
+	private Future<?> scheduledFlush;
+
+	private boolean readInProgress;
+	private boolean flushPending;
+	private int messages;
+
+	public FlushBatchingHandler(FlushMode mode, int maxMessages, long windowMicros, DistributionSummary messagesPerFlush) {
+		this.mode = mode;
+		this.maxMessages = Math.max(1, maxMessages);
+		this.windowMicros = windowMicros;
+		this.messagesPerFlush = messagesPerFlush;
+	}
+
+	public static DistributionSummary messagesPerFlush(MeterRegistry meterRegistry, String name) {
+		if (meterRegistry == null) {
+			return null;
+		}
+
+		return DistributionSummary.builder(name)
+				.description("Frames written to the socket per flush")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) {
+		this.ctx = ctx;
+
+		flushTask = () -> {
+			scheduledFlush = null;
+			if (flushPending) {
+				flushNow(this.ctx);
+			}
+		};
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+		messages++;
+		ctx.write(msg, promise);
+	}
+
+	@Override
+	public void flush(ChannelHandlerContext ctx) {
+		if (mode == FlushMode.IMMEDIATE || messages >= maxMessages) {
+			flushNow(ctx);
+			return;
+		}
+
+		flushPending = true;
+
+		switch (mode) {
+			case READ_BATCH -> {
+				if (!readInProgress) {
+					flushNow(ctx);
+				}
+			}
+			case COUNT -> {
+				if (scheduledFlush == null) {
+					scheduledFlush = ctx.executor().submit(flushTask);
+				}
+			}
+			case WINDOW -> {
+				if (scheduledFlush == null) {
+					scheduledFlush = ctx.executor().schedule(flushTask, windowMicros, TimeUnit.MICROSECONDS);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) {
+		readInProgress = true;
+		ctx.fireChannelRead(msg);
+	}
+
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx) {
+		readInProgress = false;
+		if (mode == FlushMode.READ_BATCH && flushPending) {
+			flushNow(ctx);
+		}
+
+		ctx.fireChannelReadComplete();
+	}
+
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+		flushIfPending(ctx);
+		ctx.fireExceptionCaught(cause);
+	}
+
+	@Override
+	public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+		flushIfPending(ctx);
+		ctx.disconnect(promise);
+	}
+
+	@Override
+	public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+		flushIfPending(ctx);
+		ctx.close(promise);
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) {
+		flushIfPending(ctx);
+	}
+
+	private void flushIfPending(ChannelHandlerContext ctx) {
+		if (flushPending) {
+			flushNow(ctx);
+		}
+	}
+
+	private void flushNow(ChannelHandlerContext ctx) {
+		if (scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+			scheduledFlush = null;
+		}
+
+		if (messagesPerFlush != null && messages > 0) {
+			messagesPerFlush.record(messages);
+		}
+
+		messages = 0;
+		flushPending = false;
+		ctx.flush();
+	}
+}
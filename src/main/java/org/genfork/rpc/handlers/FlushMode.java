@@ -0,0 +1,26 @@
+package org.genfork.rpc.handlers;
+
+/**
+ * Flush consolidation of the channel writes, see {@link FlushBatchingHandler}.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public enum FlushMode {
+	/**
+	 * Every flush goes to the socket.
+	 */
+	IMMEDIATE,
+	/**
+	 * Writes made while reading are flushed once at the end of the read batch, other writes are flushed immediately.
+	 */
+	READ_BATCH,
+	/**
+	 * Flush after the max messages count, the rest is flushed once the event loop has run the pending tasks.
+	 */
+	COUNT,
+	/**
+	 * Flush after the time window since the first unflushed write or after the max messages count.
+	 */
+	WINDOW
+}
@@ -0,0 +1,111 @@
+package org.genfork.rpc.handlers;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.genfork.rpc.ClientConnection;
+import org.genfork.rpc.SyncClient;
+import org.genfork.rpc.codec.Protocol;
+import org.genfork.rpc.data.Heartbeat;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pings the server every {@code interval} once the channel negotiated {@link Protocol#HEARTBEAT}.
+ * An interval in which neither the pong nor any other data was read counts as a miss, after {@code missThreshold}
+ * misses in a row the channel is closed and reconnected by the {@link ChannelWatchdogHandler}, so a half-open
+ * connection does not absorb requests until each of them times out. The round trip time of the pongs
+ * is passed to the {@link ClientConnection}.
+ * <p>
+ * State of the handler is accessed from the event loop only.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Slf4j
+public class HeartbeatHandler extends ChannelInboundHandlerAdapter {
+	private final SyncClient syncClient;
+	private final long interval;
+	private final int missThreshold;
+
+	private ScheduledFuture<?> pingFuture;
+
+	private long pingTime, lastRead;
+	private boolean awaitingPong;
+	private int missed;
+
+	public HeartbeatHandler(SyncClient syncClient) {
+		this.syncClient = syncClient;
+		this.interval = syncClient.getOptions().getHeartbeatInterval();
+		this.missThreshold = syncClient.getOptions().getHeartbeatMissThreshold();
+	}
+
+	@Override
+	public void channelActive(ChannelHandlerContext ctx) throws Exception {
+		pingFuture = ctx.executor().scheduleAtFixedRate(() -> ping(ctx), interval, interval, TimeUnit.MILLISECONDS);
+		super.channelActive(ctx);
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		if (pingFuture != null) {
+			pingFuture.cancel(false);
+			pingFuture = null;
+		}
+
+		super.channelInactive(ctx);
+	}
+
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+		lastRead = System.nanoTime();
+		super.channelReadComplete(ctx);
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (!(msg instanceof Heartbeat pong)) {
+			super.channelRead(ctx, msg);
+			return;
+		}
+
+		ReferenceCountUtil.release(msg);
+
+		if (awaitingPong && pong.getRequestId() == pingTime) {
+			awaitingPong = false;
+
+			final long rtt = System.nanoTime() - pingTime;
+			final ClientConnection connection = ClientConnection.getFrom(ctx.channel());
+			if (connection != null) {
+				connection.onHeartbeat(rtt);
+			}
+
+			syncClient.onHeartbeat(rtt);
+		}
+	}
+
+	private void ping(ChannelHandlerContext ctx) {
+		if (!Protocol.get(ctx.channel()).isEnabled(Protocol.HEARTBEAT)) {
+			return;
+		}
+
+		if (awaitingPong && lastRead - pingTime <= 0) {
+			if (++missed >= missThreshold) {
+				log.warn("Channel {} missed {} heartbeats, closing", ctx.channel(), missed);
+				syncClient.onHeartbeatTimeout();
+				ctx.close();
+				return;
+			}
+		} else {
+			missed = 0;
+		}
+
+		// a late pong of the previous ping is ignored
+		pingTime = System.nanoTime();
+		awaitingPong = true;
+
+		ctx.writeAndFlush(new Heartbeat(pingTime, false), ctx.voidPromise());
+	}
+}
@@ -0,0 +1,36 @@
+package org.genfork.rpc.handlers;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.genfork.rpc.codec.Protocol;
+import org.genfork.rpc.data.Heartbeat;
+
+/**
+ * Answers the pings of the client with a pong carrying the same request id. Pings are answered on the channels
+ * which completed the handshake with {@link Protocol#HEARTBEAT} only, a ping of any other channel closes it.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+@Slf4j
+@ChannelHandler.Sharable
+public class HeartbeatRequestHandler extends SimpleChannelInboundHandler<Heartbeat> {
+	public static final HeartbeatRequestHandler INSTANCE = new HeartbeatRequestHandler();
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, Heartbeat ping) {
+		final Channel channel = ctx.channel();
+
+		final Boolean authed = channel.attr(AuthRequestHandler.AUTH_CHECK).get();
+		if (authed == null || !authed || !Protocol.get(channel).isEnabled(Protocol.HEARTBEAT)) {
+			log.debug("Ping of the channel {} without a negotiated heartbeat, closing.", channel);
+			channel.close();
+			return;
+		}
+
+		channel.writeAndFlush(new Heartbeat(ping.getRequestId(), true), channel.voidPromise());
+	}
+}
@@ -32,7 +32,7 @@ public class LockRequestHandler extends SimpleChannelInboundHandler<LockRequest>
 
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, LockRequest lockRequest) throws Exception {
-		final String requestId = lockRequest.getRequestId();
+		final long requestId = lockRequest.getRequestId();
 
 		final Channel channel = ctx.channel();
 		final Boolean authed = channel.attr(AuthRequestHandler.AUTH_CHECK).get();
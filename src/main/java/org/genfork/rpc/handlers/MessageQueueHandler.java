@@ -1,29 +1,53 @@
 package org.genfork.rpc.handlers;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.util.AttributeKey;
-import org.cliffc.high_scale_lib.NonBlockingHashMap;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.genfork.rpc.ClientConnection;
 import org.genfork.rpc.SyncServiceOptions;
+import org.genfork.rpc.codec.Protocol;
 import org.genfork.rpc.data.AuthRequestData;
+import org.genfork.rpc.data.BatchRequestData;
+import org.genfork.rpc.data.CancelRequest;
 import org.genfork.rpc.data.DefaultRequestData;
 import org.genfork.rpc.data.LockRequestData;
 import org.genfork.rpc.data.RequestHolder;
+import org.genfork.rpc.exceptions.RemoteServiceTimeoutException;
 import org.genfork.rpc.exceptions.WriteConnectionException;
+import org.genfork.rpc.util.DeadlineQueue;
 
 import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Pending requests of the channel are kept in a primitive long-keyed table, which is accessed from the event loop only.
+ * Requests are only written here, the flush of the caller is consolidated by {@link FlushBatchingHandler}.
+ * <p>
+ * Timeouts of the pending requests are tracked on the event loop as well, by a {@link DeadlineQueue} which is swept
+ * by a single scheduled task at the earliest deadline, at most every {@link #MIN_SWEEP_INTERVAL_MILLIS}, so requests
+ * expiring close to each other fail in one batch. Entries of the completed requests are skipped by the sweep
+ * and dropped when the queue grows well beyond the table.
+ *
  * @author: GenCloud
  * @date: 2023/01
  */
 public class MessageQueueHandler extends ChannelDuplexHandler {
-	public static final AttributeKey<Map<String, RequestHolder>> REQUEST_MAP = AttributeKey.valueOf("REQUEST_MAP");
+	public static final AttributeKey<LongObjectMap<RequestHolder>> REQUEST_MAP = AttributeKey.valueOf("REQUEST_MAP");
+
+	private static final long MIN_SWEEP_INTERVAL_MILLIS = 10;
+	private static final int COMPACT_THRESHOLD = 1024;
 
 	private final SyncServiceOptions options;
 
+	private final DeadlineQueue timeouts = new DeadlineQueue();
+	private ScheduledFuture<?> sweepFuture;
+	private long sweepTime;
+
 	public MessageQueueHandler(SyncServiceOptions options) {
 		this.options = options;
 	}
@@ -31,25 +55,48 @@ public class MessageQueueHandler extends ChannelDuplexHandler {
 	@Override
 	public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
 		super.channelRegistered(ctx);
-		ctx.channel().attr(REQUEST_MAP).setIfAbsent(new NonBlockingHashMap<>());
+		ctx.channel().attr(REQUEST_MAP).setIfAbsent(new LongObjectHashMap<>());
 	}
 
 	@Override
 	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-		final Map<String, RequestHolder> reqMap = ctx.channel().attr(REQUEST_MAP).get();
+		if (sweepFuture != null) {
+			sweepFuture.cancel(false);
+			sweepFuture = null;
+		}
+
+		timeouts.clear();
+
+		final LongObjectMap<RequestHolder> reqMap = ctx.channel().attr(REQUEST_MAP).get();
 		final Iterator<RequestHolder> iterator = reqMap.values().iterator();
 		while (iterator.hasNext()) {
 			final RequestHolder holder = iterator.next();
 			iterator.remove();
 
-			holder.getChannelPromise().tryFailure(
-					new WriteConnectionException("Channel has been closed! Can't send request: "
-							+ holder.getRequestMessage() + " to channel: " + ctx.channel()));
+			final WriteConnectionException cause = new WriteConnectionException("Channel has been closed! Can't send request: "
+					+ holder.getRequestMessage() + " to channel: " + ctx.channel());
+
+			// a written request can not be answered on another channel either
+			if (!holder.getChannelPromise().tryFailure(cause)) {
+				holder.getRequestMessage().tryFailure(cause);
+			}
 		}
 
 		super.channelInactive(ctx);
 	}
 
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		if (ctx.channel().isWritable()) {
+			final ClientConnection connection = ClientConnection.getFrom(ctx.channel());
+			if (connection != null) {
+				connection.drainPendingWrites();
+			}
+		}
+
+		super.channelWritabilityChanged(ctx);
+	}
+
 	@Override
 	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
 		if (msg instanceof DefaultRequestData<?> request) {
@@ -59,48 +106,143 @@ public class MessageQueueHandler extends ChannelDuplexHandler {
 			final RequestHolder holder = new RequestHolder(promise, request);
 			if (voidType || !resultExpected) {
 				request.getDefaultRequest().setNoResult(true);
-				ctx.writeAndFlush(request, holder.getChannelPromise());
+				ctx.write(request, holder.getChannelPromise());
 
 				request.getPromise().complete(null);
 			} else {
-				final Map<String, RequestHolder> map = ctx.channel().attr(REQUEST_MAP).get();
+				final LongObjectMap<RequestHolder> map = ctx.channel().attr(REQUEST_MAP).get();
 
-				final String requestId = request.requestId();
+				final long requestId = request.requestId();
 				map.put(requestId, holder);
+				track(ctx, map, requestId, request.deadline());
 
 				try {
-					ctx.writeAndFlush(request, holder.getChannelPromise());
+					ctx.write(request, holder.getChannelPromise());
 				} catch (Exception e) {
 					map.remove(requestId);
 					throw e;
 				}
 			}
+		} else if (msg instanceof BatchRequestData batchRequest) {
+			final boolean resultExpected = options.isResultExpected();
+			final LongObjectMap<RequestHolder> map = ctx.channel().attr(REQUEST_MAP).get();
+
+			for (DefaultRequestData<Object> request : batchRequest.getRequests()) {
+				if (request.getDefaultRequest().isVoidType() || !resultExpected) {
+					request.getDefaultRequest().setNoResult(true);
+				} else {
+					map.put(request.requestId(), new RequestHolder(promise, request));
+					track(ctx, map, request.requestId(), request.deadline());
+				}
+			}
+
+			try {
+				ctx.write(batchRequest, promise);
+			} catch (Exception e) {
+				for (DefaultRequestData<Object> request : batchRequest.getRequests()) {
+					map.remove(request.requestId());
+				}
+
+				throw e;
+			}
+
+			for (DefaultRequestData<Object> request : batchRequest.getRequests()) {
+				if (request.getDefaultRequest().isNoResult()) {
+					request.getPromise().complete(null);
+				}
+			}
 		} else if (msg instanceof LockRequestData<?> lockRequest) {
 			final RequestHolder holder = new RequestHolder(promise, lockRequest);
-			final Map<String, RequestHolder> map = ctx.channel().attr(REQUEST_MAP).get();
+			final LongObjectMap<RequestHolder> map = ctx.channel().attr(REQUEST_MAP).get();
 
-			final String requestId = lockRequest.requestId();
+			final long requestId = lockRequest.requestId();
 			map.put(requestId, holder);
+			track(ctx, map, requestId, lockRequest.deadline());
 
 			try {
-				ctx.writeAndFlush(lockRequest, holder.getChannelPromise());
+				ctx.write(lockRequest, holder.getChannelPromise());
 			} catch (Exception e) {
 				map.remove(requestId);
 				throw e;
 			}
 		} else if (msg instanceof AuthRequestData<?> authRequest) {
 			final RequestHolder holder = new RequestHolder(promise, authRequest);
-			final Map<String, RequestHolder> map = ctx.channel().attr(REQUEST_MAP).get();
+			final LongObjectMap<RequestHolder> map = ctx.channel().attr(REQUEST_MAP).get();
 
-			final String requestId = authRequest.requestId();
+			final long requestId = authRequest.requestId();
 			map.put(requestId, holder);
+			track(ctx, map, requestId, authRequest.deadline());
 
 			try {
-				ctx.writeAndFlush(authRequest, holder.getChannelPromise());
+				ctx.write(authRequest, holder.getChannelPromise());
 			} catch (Exception e) {
 				map.remove(requestId);
 				throw e;
 			}
+		} else {
+			ctx.write(msg, promise);
+		}
+	}
+
+	private void track(ChannelHandlerContext ctx, LongObjectMap<RequestHolder> map, long requestId, long deadline) {
+		if (deadline == -1) {
+			return;
+		}
+
+		if (timeouts.size() >= COMPACT_THRESHOLD && timeouts.size() > map.size() * 2) {
+			timeouts.retainIf(map::containsKey);
+		}
+
+		timeouts.add(deadline, requestId);
+
+		if (sweepFuture == null || deadline < sweepTime) {
+			scheduleSweep(ctx, deadline);
+		}
+	}
+
+	private void scheduleSweep(ChannelHandlerContext ctx, long time) {
+		if (sweepFuture != null) {
+			sweepFuture.cancel(false);
+		}
+
+		sweepTime = time;
+		sweepFuture = ctx.executor().schedule(() -> sweep(ctx), time - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	private void sweep(ChannelHandlerContext ctx) {
+		sweepFuture = null;
+
+		final Channel channel = ctx.channel();
+		final LongObjectMap<RequestHolder> map = channel.attr(REQUEST_MAP).get();
+		final ClientConnection connection = ClientConnection.getFrom(channel);
+		final boolean cancel = channel.isActive() && Protocol.get(channel).isEnabled(Protocol.CANCELLATION);
+
+		final long now = System.currentTimeMillis();
+		boolean written = false;
+		while (!timeouts.isEmpty() && timeouts.peekDeadline() <= now) {
+			final long requestId = timeouts.poll();
+
+			final RequestHolder holder = map.remove(requestId);
+			if (holder == null) {
+				continue;
+			}
+
+			holder.getRequestMessage().tryFailure(connection != null
+					? connection.newTimeoutException(requestId)
+					: new RemoteServiceTimeoutException("Execution timeout for request: " + requestId + ", Channel: " + channel));
+
+			if (cancel) {
+				ctx.write(new CancelRequest(requestId), ctx.voidPromise());
+				written = true;
+			}
+		}
+
+		if (written) {
+			ctx.flush();
+		}
+
+		if (!timeouts.isEmpty()) {
+			scheduleSweep(ctx, Math.max(timeouts.peekDeadline(), now + MIN_SWEEP_INTERVAL_MILLIS));
 		}
 	}
 }
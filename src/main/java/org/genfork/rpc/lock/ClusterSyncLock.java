@@ -10,7 +10,6 @@ import org.genfork.rpc.data.LockRequestType;
 import org.genfork.rpc.data.LockRes;
 import org.genfork.rpc.util.ChannelSupplier;
 
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -54,11 +53,10 @@ public class ClusterSyncLock implements Lock {
 	@Override
 	public CompletableFuture<Boolean> tryLockAsync(long threadId) {
 		final ClientConnection connection = channels.get();
-		final String requestId = UUID.randomUUID().toString();
 		return doWithMeterIfPresent(
 				lockTimer,
 				connection
-						.async(new LockRequest(requestId, LockRequestType.ACQUIRE, threadId, entry, -1L, systemLeaseTimeout))
+						.async(new LockRequest(LockRequestType.ACQUIRE, threadId, entry, -1L, systemLeaseTimeout))
 						.handle((res, th) -> {
 							if (th != null) {
 								log.error("Unexpected error while trying acquire lock.", th);
@@ -78,11 +76,10 @@ public class ClusterSyncLock implements Lock {
 	@Override
 	public CompletableFuture<Boolean> tryLockAsync(long threadId, long waitTime) {
 		final ClientConnection connection = channels.get();
-		final String requestId = UUID.randomUUID().toString();
 		return doWithMeterIfPresent(
 				lockTimer,
 				connection
-						.async(new LockRequest(requestId, LockRequestType.ACQUIRE, threadId, entry, waitTime, systemLeaseTimeout))
+						.async(new LockRequest(LockRequestType.ACQUIRE, threadId, entry, waitTime, systemLeaseTimeout))
 						.handle((res, th) -> {
 							if (th != null) {
 								log.error("Unexpected error while trying acquire lock.", th);
@@ -102,11 +99,10 @@ public class ClusterSyncLock implements Lock {
 	@Override
 	public CompletableFuture<Boolean> tryLockAsync(long threadId, long waitTime, long leaseTime) {
 		final ClientConnection connection = channels.get();
-		final String requestId = UUID.randomUUID().toString();
 		return doWithMeterIfPresent(
 				lockTimer,
 				connection
-						.async(new LockRequest(requestId, LockRequestType.ACQUIRE, threadId, entry, waitTime, leaseTime))
+						.async(new LockRequest(LockRequestType.ACQUIRE, threadId, entry, waitTime, leaseTime))
 						.handle((res, th) -> {
 							if (th != null) {
 								log.error("Unexpected error while trying acquire lock.", th);
@@ -126,11 +122,10 @@ public class ClusterSyncLock implements Lock {
 	@Override
 	public CompletableFuture<Boolean> isHeldBy(long threadId) {
 		final ClientConnection connection = channels.get();
-		final String requestId = UUID.randomUUID().toString();
 		return doWithMeterIfPresent(
 				heldTimer,
 				connection
-						.async(new LockRequest(requestId, LockRequestType.CHECK, threadId, entry, -1L, systemLeaseTimeout))
+						.async(new LockRequest(LockRequestType.CHECK, threadId, entry, -1L, systemLeaseTimeout))
 						.handle((res, th) -> {
 							if (th != null) {
 								log.error("Unexpected error while check lock is held by.", th);
@@ -150,9 +145,8 @@ public class ClusterSyncLock implements Lock {
 	@Override
 	public CompletableFuture<Void> unlockAsync(long threadId) {
 		final ClientConnection connection = channels.get();
-		final String requestId = UUID.randomUUID().toString();
 		return connection
-				.async(new LockRequest(requestId, LockRequestType.RELEASE, threadId, entry, -1L, systemLeaseTimeout))
+				.async(new LockRequest(LockRequestType.RELEASE, threadId, entry, -1L, systemLeaseTimeout))
 				.handle((res, th) -> null);
 	}
 
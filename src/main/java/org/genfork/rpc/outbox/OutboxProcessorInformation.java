@@ -3,6 +3,7 @@ package org.genfork.rpc.outbox;
 import org.genfork.rpc.KryoCodec;
 import org.genfork.rpc.data.DefaultRequest;
 
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -19,7 +20,8 @@ public class OutboxProcessorInformation {
 		this.catchOn = catchOn;
 	}
 
-	public CompletableFuture<Void> processFail(String requestId, String serviceName, Class<?> serviceClass, DefaultRequest request) {
+	public CompletableFuture<Void> processFail(String serviceName, Class<?> serviceClass, DefaultRequest request) {
+		final String requestId = UUID.randomUUID().toString();
 		final byte[] requestData = KryoCodec.write(request);
 		final String serviceClassName = serviceClass.getName();
 		return outboxProcessor.fail(requestId, serviceName, serviceClassName, requestData);
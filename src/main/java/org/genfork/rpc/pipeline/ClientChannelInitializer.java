@@ -1,17 +1,16 @@
 package org.genfork.rpc.pipeline;
 
+import io.micrometer.core.instrument.DistributionSummary;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import org.genfork.rpc.SyncClient;
+import org.genfork.rpc.SyncServiceOptions;
 import org.genfork.rpc.codec.*;
 import org.genfork.rpc.handlers.*;
 
-import java.nio.ByteOrder;
-
 /**
  * @author: GenCloud
  * @date: 2023/01
@@ -19,6 +18,7 @@ import java.nio.ByteOrder;
 public class ClientChannelInitializer extends ChannelInitializer<NioSocketChannel> {
 	private final SyncClient syncClient;
 	private final ChannelWatchdogHandler connectionWatchdog;
+	private final DistributionSummary messagesPerFlush;
 
 	public ClientChannelInitializer(SyncClient syncClient,
 	                                Bootstrap bootstrap,
@@ -26,28 +26,37 @@ public class ClientChannelInitializer extends ChannelInitializer<NioSocketChanne
 		this.syncClient = syncClient;
 
 		connectionWatchdog = new ChannelWatchdogHandler(bootstrap, channels);
+		messagesPerFlush = FlushBatchingHandler.messagesPerFlush(syncClient.getMeterRegistry(), "sync-client-messages-per-flush");
 	}
 
 	@Override
 	protected void initChannel(NioSocketChannel ch) {
 		final ChannelPipeline pipeline = ch.pipeline();
 
+		final SyncServiceOptions options = syncClient.getOptions();
+		pipeline.addLast(new FlushBatchingHandler(options.getFlushMode(), options.getFlushMaxMessages(),
+				options.getFlushWindowMicros(), messagesPerFlush));
+
 		pipeline.addLast(new ConnectionHandler(syncClient));
 
-		pipeline.addLast(connectionWatchdog, LengthEncoder.INSTANCE,
-				LockRequestEncoder.INSTANCE, AuthRequestEncoder.INSTANCE, DefaultRequestEncoder.INSTANCE);
+		pipeline.addLast(connectionWatchdog, new ChunkWriter(), FrameEncoder.INSTANCE);
 
 		pipeline.addLast(new MessageQueueHandler(syncClient.getOptions()));
 
 		pipeline.addLast(
-				new LengthFieldBasedFrameDecoder(
-						ByteOrder.LITTLE_ENDIAN,
-						32768 - 2, 0, 2, -2, 2,
-						false
-				),
-				new ReplyDecoder(),
+				new FrameDecoder(),
+				new ChunkAggregator(options.getMaxChunkStreams(), options.getMaxChunkBufferedBytes()),
+				MessageDecoder.REPLIES
+		);
+
+		if (options.getHeartbeatInterval() > 0) {
+			pipeline.addLast(new HeartbeatHandler(syncClient));
+		}
+
+		pipeline.addLast(
 				new LockReplyHandler(),
-				new AuthReplyHandler(),
+				new AuthReplyHandler(syncClient.getOptions()),
+				BatchReplyHandler.INSTANCE,
 				new DefaultReplyHandler()
 		);
 	}
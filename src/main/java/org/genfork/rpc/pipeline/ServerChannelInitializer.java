@@ -1,18 +1,20 @@
 package org.genfork.rpc.pipeline;
 
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import org.genfork.rpc.SyncServiceOptions;
 import org.genfork.rpc.codec.*;
 import org.genfork.rpc.handlers.AuthRequestHandler;
 import org.genfork.rpc.handlers.DefaultRequestHandler;
+import org.genfork.rpc.handlers.ExpiredRequestFilter;
+import org.genfork.rpc.handlers.FlushBatchingHandler;
+import org.genfork.rpc.handlers.HeartbeatRequestHandler;
 import org.genfork.rpc.handlers.LockRequestHandler;
 import org.genfork.rpc.lock.LockRegistry;
 
-import java.nio.ByteOrder;
-
 /**
  * @author: GenCloud
  * @date: 2023/01
@@ -22,31 +24,43 @@ public class ServerChannelInitializer extends ChannelInitializer<SocketChannel>
 	private final MeterRegistry meterRegistry;
 	private final String login;
 	private final String password;
+	private final SyncServiceOptions options;
+	private final ExpiredRequestFilter expiredRequestFilter;
+	private final DistributionSummary messagesPerFlush;
 
-	public ServerChannelInitializer(LockRegistry lockRegistry, MeterRegistry meterRegistry, String login, String password) {
+	public ServerChannelInitializer(LockRegistry lockRegistry, MeterRegistry meterRegistry, String login, String password, SyncServiceOptions options) {
 		this.lockRegistry = lockRegistry;
 		this.meterRegistry = meterRegistry;
 		this.login = login;
 		this.password = password;
+		this.options = options;
+
+		expiredRequestFilter = new ExpiredRequestFilter(meterRegistry);
+		messagesPerFlush = FlushBatchingHandler.messagesPerFlush(meterRegistry, "sync-server-messages-per-flush");
 	}
 
 	@Override
 	protected void initChannel(SocketChannel ch) {
 		final ChannelPipeline pipeline = ch.pipeline();
 
+		final Protocol protocol = Protocol.supported(options.getMaxFrameLength())
+				.withCodec(options.getCodec())
+				.withCompression(options.getCompression(), options.getCompressionThreshold());
+
+		pipeline.addLast(new FlushBatchingHandler(options.getFlushMode(), options.getFlushMaxMessages(),
+				options.getFlushWindowMicros(), messagesPerFlush));
+
 		pipeline.addLast(
-				new LengthFieldBasedFrameDecoder(
-						ByteOrder.LITTLE_ENDIAN,
-						32768 - 2, 0, 2, -2, 2,
-						false
-				),
-				new RequestDecoder(),
+				new FrameDecoder(),
+				new ChunkAggregator(options.getMaxChunkStreams(), options.getMaxChunkBufferedBytes()),
+				expiredRequestFilter,
+				MessageDecoder.REQUESTS,
+				HeartbeatRequestHandler.INSTANCE,
 				new LockRequestHandler(login, password, lockRegistry, meterRegistry),
-				new AuthRequestHandler(login, password),
+				new AuthRequestHandler(login, password, protocol),
 				new DefaultRequestHandler(login, password, meterRegistry)
 		);
 
-		pipeline.addLast(LengthEncoder.INSTANCE,
-				LockReplyEncoder.INSTANCE, AuthReplyEncoder.INSTANCE, DefaultReplyEncoder.INSTANCE);
+		pipeline.addLast(new ChunkWriter(), FrameEncoder.INSTANCE);
 	}
 }
@@ -1,15 +1,19 @@
 package org.genfork.rpc.util;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
 
 /**
+ * Selects a connection or an endpoint by the power of two choices: of two random candidates the active one
+ * with the lower load is taken. When both are inactive, the least loaded active candidate is searched,
+ * so a reconnecting connection or an ejected endpoint does not receive a share of the traffic.
+ *
  * @author: GenCloud
  * @date: 2023/01
  */
-public class ChannelSupplier<T> implements Supplier<T> {
-	private final AtomicInteger counter = new AtomicInteger();
-	private final T[] elements;
+public class ChannelSupplier<T extends ChannelSupplier.Candidate> implements Supplier<T> {
+	private volatile T[] elements;
 
 	public ChannelSupplier(T[] elements) {
 		this.elements = elements;
@@ -19,9 +23,103 @@ public class ChannelSupplier<T> implements Supplier<T> {
 		return elements;
 	}
 
+	public int size() {
+		return elements.length;
+	}
+
+	public synchronized void add(T element) {
+		final T[] elements = Arrays.copyOf(this.elements, this.elements.length + 1);
+		elements[elements.length - 1] = element;
+		this.elements = elements;
+	}
+
+	/**
+	 * Removes the element unless it is the last one.
+	 */
+	public synchronized boolean remove(T element) {
+		final T[] elements = this.elements;
+		if (elements.length == 1) {
+			return false;
+		}
+
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] == element) {
+				final T[] result = Arrays.copyOf(elements, elements.length - 1);
+				System.arraycopy(elements, i + 1, result, i, elements.length - i - 1);
+				this.elements = result;
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	@Override
 	public T get() {
-		final int i = counter.incrementAndGet();
-		return elements[i % elements.length];
+		final T[] elements = this.elements;
+		final int length = elements.length;
+		if (length == 1) {
+			return elements[0];
+		}
+
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		final int first = random.nextInt(length);
+
+		int second = random.nextInt(length - 1);
+		if (second >= first) {
+			second++;
+		}
+
+		final T chosen = select(elements[first], elements[second]);
+		if (chosen.isActive()) {
+			return chosen;
+		}
+
+		T best = null;
+		for (T element : elements) {
+			if (element.isActive() && (best == null || element.getLoad() < best.getLoad())) {
+				best = element;
+			}
+		}
+
+		return best != null ? best : chosen;
+	}
+
+	/**
+	 * @return the least loaded active element other than {@code except}, null if there is none
+	 */
+	public T getOther(T except) {
+		T best = null;
+		for (T element : elements) {
+			if (element != except && element.isActive() && (best == null || element.getLoad() < best.getLoad())) {
+				best = element;
+			}
+		}
+
+		return best;
+	}
+
+	private T select(T first, T second) {
+		if (first.isActive() != second.isActive()) {
+			return first.isActive() ? first : second;
+		}
+
+		return first.getLoad() <= second.getLoad() ? first : second;
+	}
+
+	public interface Candidate {
+		boolean isActive();
+
+		/**
+		 * @return requests sent and not completed yet
+		 */
+		int getOutstanding();
+
+		/**
+		 * @return cost of sending the next request, lower is preferred
+		 */
+		default double getLoad() {
+			return getOutstanding();
+		}
 	}
 }
@@ -0,0 +1,122 @@
+package org.genfork.rpc.util;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Binary min-heap of request ids ordered by their deadlines, kept in two primitive arrays,
+ * so tracking a request does not allocate. Not thread-safe, the queue is owned by the event loop of a channel.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public class DeadlineQueue {
+	private static final int INITIAL_CAPACITY = 64;
+
+	private long[] deadlines = new long[INITIAL_CAPACITY];
+	private long[] ids = new long[INITIAL_CAPACITY];
+	private int size;
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void add(long deadline, long id) {
+		if (size == deadlines.length) {
+			deadlines = Arrays.copyOf(deadlines, size << 1);
+			ids = Arrays.copyOf(ids, size << 1);
+		}
+
+		siftUp(size++, deadline, id);
+	}
+
+	/**
+	 * @return the earliest deadline, the queue must not be empty
+	 */
+	public long peekDeadline() {
+		return deadlines[0];
+	}
+
+	/**
+	 * Removes the entry with the earliest deadline, the queue must not be empty.
+	 *
+	 * @return id of the entry
+	 */
+	public long poll() {
+		final long id = ids[0];
+		if (--size > 0) {
+			siftDown(0, deadlines[size], ids[size]);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Keeps the entries whose id matches the filter.
+	 */
+	public void retainIf(LongPredicate filter) {
+		int retained = 0;
+		for (int i = 0; i < size; i++) {
+			if (filter.test(ids[i])) {
+				deadlines[retained] = deadlines[i];
+				ids[retained] = ids[i];
+				retained++;
+			}
+		}
+
+		size = retained;
+		for (int i = (size >>> 1) - 1; i >= 0; i--) {
+			siftDown(i, deadlines[i], ids[i]);
+		}
+	}
+
+	public void clear() {
+		size = 0;
+		if (deadlines.length > INITIAL_CAPACITY) {
+			deadlines = new long[INITIAL_CAPACITY];
+			ids = new long[INITIAL_CAPACITY];
+		}
+	}
+
+	private void siftUp(int index, long deadline, long id) {
+		while (index > 0) {
+			final int parent = (index - 1) >>> 1;
+			if (deadlines[parent] <= deadline) {
+				break;
+			}
+
+			deadlines[index] = deadlines[parent];
+			ids[index] = ids[parent];
+			index = parent;
+		}
+
+		deadlines[index] = deadline;
+		ids[index] = id;
+	}
+
+	private void siftDown(int index, long deadline, long id) {
+		final int half = size >>> 1;
+		while (index < half) {
+			int child = (index << 1) + 1;
+			final int right = child + 1;
+			if (right < size && deadlines[right] < deadlines[child]) {
+				child = right;
+			}
+
+			if (deadline <= deadlines[child]) {
+				break;
+			}
+
+			deadlines[index] = deadlines[child];
+			ids[index] = ids[child];
+			index = child;
+		}
+
+		deadlines[index] = deadline;
+		ids[index] = id;
+	}
+}
@@ -0,0 +1,145 @@
+package org.genfork.rpc;
+
+import org.genfork.rpc.CircuitBreaker.State;
+import org.genfork.rpc.exceptions.CircuitBreakerOpenException;
+import org.genfork.rpc.exceptions.RemoteServiceTimeoutException;
+import org.genfork.rpc.exceptions.RequestRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+class CircuitBreakerTest {
+	private static final long OPEN_DURATION = 50, HALF_OPEN_TIMEOUT = 200;
+
+	private final CircuitBreaker breaker = new CircuitBreaker("test", SyncServiceOptions.defaults()
+			.circuitBreaker(10, 5, 50, 30, 3, OPEN_DURATION, 2, HALF_OPEN_TIMEOUT), null, "test");
+
+	@Test
+	void opensAfterConsecutiveFailures() {
+		breaker.onComplete(new IOException());
+		breaker.onComplete(new IOException());
+		assertEquals(State.CLOSED, breaker.getState());
+
+		breaker.onComplete(new IOException());
+		assertEquals(State.OPEN, breaker.getState());
+		assertThrows(CircuitBreakerOpenException.class, breaker::acquire);
+		assertFalse(breaker.isAvailable());
+	}
+
+	@Test
+	void opensOnTimeoutRate() {
+		for (int i = 0; i < 3; i++) {
+			breaker.onComplete(null);
+		}
+
+		breaker.onComplete(new RemoteServiceTimeoutException("timeout"));
+		breaker.onComplete(null);
+		assertEquals(State.CLOSED, breaker.getState());
+
+		breaker.onComplete(new RemoteServiceTimeoutException("timeout"));
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
+	@Test
+	void closesAfterSuccessfulTrials() throws InterruptedException {
+		open();
+		Thread.sleep(OPEN_DURATION + 10);
+
+		assertTrue(breaker.tryAcquire());
+		assertTrue(breaker.tryAcquire());
+		assertFalse(breaker.tryAcquire());
+		assertEquals(State.HALF_OPEN, breaker.getState());
+
+		breaker.onComplete(null);
+		breaker.onComplete(null);
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	void reopensOnFailedTrial() throws InterruptedException {
+		open();
+		Thread.sleep(OPEN_DURATION + 10);
+
+		assertTrue(breaker.tryAcquire());
+		breaker.onComplete(new IOException());
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
+	@Test
+	void cancelledAndRejectedTrialsGiveTheirPermitBack() throws InterruptedException {
+		open();
+		Thread.sleep(OPEN_DURATION + 10);
+
+		assertTrue(breaker.tryAcquire());
+		assertTrue(breaker.tryAcquire());
+		breaker.onComplete(new CancellationException());
+		breaker.onComplete(new RequestRejectedException("rejected"));
+		assertEquals(State.HALF_OPEN, breaker.getState());
+
+		assertTrue(breaker.tryAcquire());
+		assertTrue(breaker.tryAcquire());
+		breaker.onComplete(null);
+		breaker.onComplete(null);
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	void rejectedAttemptsDoNotHoldPermits() throws InterruptedException {
+		open();
+		Thread.sleep(OPEN_DURATION + 10);
+
+		assertTrue(breaker.tryAcquire());
+		assertTrue(breaker.tryAcquire());
+		assertFalse(breaker.tryAcquire());
+		assertFalse(breaker.tryAcquire());
+
+		breaker.onComplete(new CancellationException());
+		assertTrue(breaker.tryAcquire());
+		assertFalse(breaker.tryAcquire());
+
+		breaker.onComplete(null);
+		breaker.onComplete(null);
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	void cancellationIsNotAFailure() {
+		for (int i = 0; i < 10; i++) {
+			breaker.onComplete(new CancellationException());
+		}
+
+		assertEquals(State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	void lostTrialsTimeOutBackToOpen() throws InterruptedException {
+		open();
+		Thread.sleep(OPEN_DURATION + 10);
+
+		assertTrue(breaker.tryAcquire());
+		assertTrue(breaker.tryAcquire());
+
+		Thread.sleep(HALF_OPEN_TIMEOUT + 10);
+		assertFalse(breaker.tryAcquire());
+		assertEquals(State.OPEN, breaker.getState());
+
+		Thread.sleep(OPEN_DURATION + 10);
+		assertTrue(breaker.tryAcquire());
+		assertEquals(State.HALF_OPEN, breaker.getState());
+	}
+
+	private void open() {
+		for (int i = 0; i < 3; i++) {
+			breaker.onComplete(new IOException());
+		}
+
+		assertEquals(State.OPEN, breaker.getState());
+	}
+}
@@ -0,0 +1,161 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.genfork.rpc.data.DefaultReply;
+import org.genfork.rpc.data.DefaultRequest;
+import org.genfork.rpc.data.DefaultRequestData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Split of large frames by {@link ChunkWriter} and their reassembly by {@link ChunkAggregator}.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+class ChunkTest {
+	private static final Protocol PROTOCOL = Protocol.supported(Protocol.DEFAULT_MAX_FRAME_LENGTH);
+
+	@Test
+	void largeMessageIsSplitAndReassembled() {
+		final byte[] result = random(3 * ChunkWriter.CHUNK_SIZE + 123);
+
+		final EmbeddedChannel sender = FrameCodecTest.channel(PROTOCOL);
+		sender.writeOutbound(new DefaultReply(1, result));
+
+		final List<ByteBuf> frames = drain(sender);
+		assertEquals(4, frames.size());
+		for (ByteBuf frame : frames) {
+			assertEquals(Frame.CHUNK, frame.getUnsignedByte(Frame.LENGTH_FIELD_LENGTH));
+		}
+
+		final EmbeddedChannel receiver = FrameCodecTest.channel(PROTOCOL, MessageDecoder.REPLIES);
+		for (ByteBuf frame : frames) {
+			receiver.writeInbound(frame);
+		}
+
+		final DefaultReply decoded = receiver.readInbound();
+		assertArrayEquals(result, (byte[]) decoded.getResult());
+	}
+
+	@Test
+	void streamsInterleaveWithSmallMessages() {
+		final byte[] first = random(2 * ChunkWriter.CHUNK_SIZE);
+		final byte[] second = random(2 * ChunkWriter.CHUNK_SIZE + 1);
+
+		final EmbeddedChannel sender = FrameCodecTest.channel(PROTOCOL);
+		sender.write(new DefaultReply(1, first));
+		sender.write(new DefaultReply(2, second));
+		sender.write(new DefaultReply(3, "small"));
+		sender.flush();
+
+		final List<ByteBuf> frames = drain(sender);
+
+		// the small reply is not queued behind the streams
+		assertNotEquals(Frame.CHUNK, frames.get(0).getUnsignedByte(Frame.LENGTH_FIELD_LENGTH));
+		final long firstStream = frames.get(1).getLongLE(Frame.LENGTH_FIELD_LENGTH + 2);
+		final long secondStream = frames.get(2).getLongLE(Frame.LENGTH_FIELD_LENGTH + 2);
+		assertNotEquals(firstStream, secondStream);
+
+		final EmbeddedChannel receiver = FrameCodecTest.channel(PROTOCOL, MessageDecoder.REPLIES);
+		for (ByteBuf frame : frames) {
+			receiver.writeInbound(frame);
+		}
+
+		final List<DefaultReply> replies = new ArrayList<>();
+		DefaultReply reply;
+		while ((reply = receiver.readInbound()) != null) {
+			replies.add(reply);
+		}
+
+		assertEquals(3, replies.size());
+		assertEquals("small", replies.get(0).getResult());
+		assertArrayEquals(first, (byte[]) replies.get(1).getResult());
+		assertArrayEquals(second, (byte[]) replies.get(2).getResult());
+	}
+
+	@Test
+	void deadlineCountsFromTheFirstChunk() throws Exception {
+		final TestService.Item item = new TestService.Item(1, "x".repeat(3 * ChunkWriter.CHUNK_SIZE));
+		final DefaultRequest request = new DefaultRequest(TestService.class,
+				TestService.class.getMethod("echo", TestService.Item.class), new Object[]{item}, false);
+		request.setRequestId(1);
+		request.setDeadline(System.currentTimeMillis() + 5_000);
+
+		final EmbeddedChannel sender = FrameCodecTest.channel(PROTOCOL);
+		sender.writeOutbound(new DefaultRequestData<>(new CompletableFuture<>(), request));
+
+		final List<ByteBuf> frames = drain(sender);
+		assertTrue(frames.size() > 1);
+
+		final EmbeddedChannel receiver = FrameCodecTest.channel(PROTOCOL, MessageDecoder.REQUESTS);
+		receiver.writeInbound(frames.get(0));
+		Thread.sleep(300);
+		for (ByteBuf frame : frames.subList(1, frames.size())) {
+			receiver.writeInbound(frame);
+		}
+
+		final DefaultRequest decoded = receiver.readInbound();
+		assertEquals(item, decoded.getArgs()[0]);
+		// the time the rest of the chunks took is not added to the deadline
+		assertTrue(decoded.getDeadline() - request.getDeadline() < 300);
+	}
+
+	@Test
+	void tooManyOpenStreamsCloseTheChannel() {
+		final EmbeddedChannel receiver = new EmbeddedChannel(new FrameDecoder(), new ChunkAggregator(2, Long.MAX_VALUE));
+		receiver.attr(Protocol.PROTOCOL).set(PROTOCOL);
+
+		receiver.writeInbound(chunk(1, 100));
+		receiver.writeInbound(chunk(2, 100));
+		assertTrue(receiver.isOpen());
+
+		receiver.writeInbound(chunk(3, 100));
+		assertFalse(receiver.isOpen());
+	}
+
+	@Test
+	void tooManyBufferedBytesCloseTheChannel() {
+		final EmbeddedChannel receiver = new EmbeddedChannel(new FrameDecoder(), new ChunkAggregator(16, 250));
+		receiver.attr(Protocol.PROTOCOL).set(PROTOCOL);
+
+		receiver.writeInbound(chunk(1, 100));
+		receiver.writeInbound(chunk(2, 100));
+		assertTrue(receiver.isOpen());
+
+		receiver.writeInbound(chunk(1, 100));
+		assertFalse(receiver.isOpen());
+	}
+
+	private static ByteBuf chunk(long streamId, int length) {
+		final ByteBuf frame = Unpooled.buffer();
+		frame.writeIntLE(Frame.LENGTH_FIELD_LENGTH + Frame.HEADER_LENGTH + length);
+		Frame.writeHeader(frame, Frame.CHUNK, 0, streamId, -1);
+		frame.writeZero(length);
+		return frame;
+	}
+
+	private static List<ByteBuf> drain(EmbeddedChannel channel) {
+		final List<ByteBuf> frames = new ArrayList<>();
+		ByteBuf frame;
+		while ((frame = channel.readOutbound()) != null) {
+			frames.add(frame);
+		}
+
+		return frames;
+	}
+
+	private static byte[] random(int length) {
+		final byte[] bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+}
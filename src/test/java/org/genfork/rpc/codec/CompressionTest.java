@@ -0,0 +1,54 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+class CompressionTest {
+	private static final byte[] DATA = "compressible payload ".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+	@Test
+	void roundTrip() {
+		final ByteBuf compressed = Unpooled.buffer();
+		final int compressedLength = Compression.compress(Unpooled.wrappedBuffer(DATA), compressed);
+		assertTrue(compressedLength < DATA.length);
+
+		final ByteBuf decompressed = Unpooled.buffer();
+		Compression.decompress(compressed, decompressed, DATA.length);
+
+		assertArrayEquals(DATA, ByteBufUtil.getBytes(decompressed));
+		assertFalse(compressed.isReadable());
+	}
+
+	@Test
+	void declaredLengthMustMatch() {
+		final ByteBuf compressed = Unpooled.buffer();
+		Compression.compress(Unpooled.wrappedBuffer(DATA), compressed);
+
+		assertThrows(CorruptedFrameException.class,
+				() -> Compression.decompress(compressed.copy(), Unpooled.buffer(), DATA.length - 1));
+		assertThrows(CorruptedFrameException.class,
+				() -> Compression.decompress(compressed.copy(), Unpooled.buffer(), DATA.length + 1));
+	}
+
+	@Test
+	void malformedInputFails() {
+		final byte[] garbage = new byte[64];
+		for (int i = 0; i < garbage.length; i++) {
+			garbage[i] = (byte) (0xF0 | i);
+		}
+
+		assertThrows(CorruptedFrameException.class,
+				() -> Compression.decompress(Unpooled.wrappedBuffer(garbage), Unpooled.buffer(), 4096));
+	}
+}
@@ -0,0 +1,201 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.genfork.rpc.data.*;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Messages through {@link FrameEncoder}, {@link FrameDecoder}, {@link ChunkAggregator} and {@link MessageDecoder}.
+ *
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+class FrameCodecTest {
+	private static final Method ECHO;
+
+	static {
+		ClassDictionary.registerService(TestService.class);
+
+		try {
+			ECHO = TestService.class.getMethod("echo", TestService.Item.class);
+		} catch (NoSuchMethodException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	@Test
+	void requestRoundTrip() {
+		final Protocol protocol = Protocol.supported(Protocol.DEFAULT_MAX_FRAME_LENGTH);
+
+		final DefaultRequest request = request(new TestService.Item(1, "one"));
+		request.setDeadline(System.currentTimeMillis() + 5_000);
+		request.setNoResult(true);
+
+		final DefaultRequest decoded = transfer(protocol, MessageDecoder.REQUESTS, new DefaultRequestData<>(new CompletableFuture<>(), request));
+
+		assertEquals(request.getRequestId(), decoded.getRequestId());
+		assertEquals(TestService.class, decoded.getServiceClass());
+		assertEquals("echo", decoded.getMethodName());
+		assertArrayEquals(request.getArgs(), decoded.getArgs());
+		assertTrue(decoded.isNoResult());
+		// relative deadline, converted back by the clock of the receiver
+		assertTrue(Math.abs(decoded.getDeadline() - request.getDeadline()) < 1_000);
+	}
+
+	@Test
+	void indexedRequestCarriesMethodId() {
+		final MethodTable methods = MethodTable.of(List.of(MethodTable.key(TestService.class, ECHO)));
+		final Protocol local = Protocol.supported(Protocol.DEFAULT_MAX_FRAME_LENGTH);
+		final Protocol protocol = local.negotiate(local, methods);
+
+		final DefaultRequest request = request(new TestService.Item(2, "two"));
+		final DefaultRequest decoded = transfer(protocol, MessageDecoder.REQUESTS, new DefaultRequestData<>(new CompletableFuture<>(), request));
+
+		assertEquals(1, decoded.getMethodId());
+		assertArrayEquals(request.getArgs(), decoded.getArgs());
+	}
+
+	@Test
+	void replyRoundTripWithAndWithoutDictionary() {
+		final TestService.Item item = new TestService.Item(3, "three");
+
+		final Protocol local = Protocol.supported(Protocol.DEFAULT_MAX_FRAME_LENGTH);
+		final DefaultReply withDictionary = transfer(local.negotiate(local, MethodTable.EMPTY), MessageDecoder.REPLIES, new DefaultReply(7, item));
+		final DefaultReply withoutDictionary = transfer(new Protocol(0, Protocol.DEFAULT_MAX_FRAME_LENGTH), MessageDecoder.REPLIES, new DefaultReply(7, item));
+
+		assertEquals(7, withDictionary.getRequestId());
+		assertEquals(item, withDictionary.getResult());
+		assertEquals(item, withoutDictionary.getResult());
+	}
+
+	@Test
+	void compressedReplyRoundTrip() {
+		final String result = "compressible ".repeat(1_000);
+		final Protocol protocol = Protocol.supported(Protocol.DEFAULT_MAX_FRAME_LENGTH)
+				.withCompression(Compression.LZ4, 256);
+
+		final EmbeddedChannel sender = channel(protocol);
+		sender.writeOutbound(new DefaultReply(8, result));
+		final ByteBuf frame = sender.readOutbound();
+
+		assertTrue(frame.readableBytes() < result.length());
+		assertNotEquals(0, frame.getByte(Frame.LENGTH_FIELD_LENGTH + 1) & Frame.COMPRESSED);
+
+		final EmbeddedChannel receiver = channel(protocol, MessageDecoder.REPLIES);
+		receiver.writeInbound(frame);
+		final DefaultReply decoded = receiver.readInbound();
+
+		assertEquals(result, decoded.getResult());
+	}
+
+	@Test
+	void headerOnlyFrames() {
+		final Protocol protocol = Protocol.supported(Protocol.DEFAULT_MAX_FRAME_LENGTH);
+
+		final CancelRequest cancel = transfer(protocol, MessageDecoder.REQUESTS, new CancelRequest(9));
+		assertEquals(9, cancel.getRequestId());
+
+		final Heartbeat ping = transfer(protocol, MessageDecoder.REQUESTS, new Heartbeat(10, false));
+		assertEquals(10, ping.getRequestId());
+		assertFalse(ping.isPong());
+
+		final Heartbeat pong = transfer(protocol, MessageDecoder.REPLIES, new Heartbeat(10, true));
+		assertTrue(pong.isPong());
+	}
+
+	@Test
+	void handshakeCarriesProtocolOptions() {
+		final AuthRequest authRequest = new AuthRequest("login", "password");
+		authRequest.setRequestId(1);
+		authRequest.setProtocol(Protocol.supported(Protocol.DEFAULT_MAX_FRAME_LENGTH));
+
+		final AuthRequest decoded = transfer(Protocol.LEGACY, MessageDecoder.REQUESTS,
+				new AuthRequestData<>(new CompletableFuture<>(), authRequest));
+
+		assertEquals("login", decoded.getLogin());
+		assertNotNull(decoded.getProtocol());
+		assertEquals(authRequest.getProtocol().getFeatures(), decoded.getProtocol().getFeatures());
+	}
+
+	@Test
+	void legacyFramesBeforeHandshake() {
+		final DefaultRequest request = request(new TestService.Item(3, "three"));
+		request.setDeadline(System.currentTimeMillis() + 5_000);
+
+		final DefaultRequest second = request(new TestService.Item(4, "four"));
+		second.setRequestId(43);
+
+		final EmbeddedChannel sender = channel(Protocol.LEGACY);
+		sender.writeOutbound(new BatchRequestData(44, -1, List.of(
+				new DefaultRequestData<>(new CompletableFuture<>(), request),
+				new DefaultRequestData<>(new CompletableFuture<>(), second))));
+
+		final ByteBuf frames = sender.readOutbound();
+		assertEquals(Frame.DEFAULT, frames.getByte(Legacy.LENGTH_FIELD_LENGTH));
+
+		final EmbeddedChannel receiver = channel(Protocol.LEGACY, MessageDecoder.REQUESTS);
+		receiver.writeInbound(frames);
+
+		final DefaultRequest decoded = receiver.readInbound();
+		assertEquals(42, decoded.getRequestId());
+		assertEquals("echo", decoded.getMethodName());
+		assertArrayEquals(request.getArgs(), decoded.getArgs());
+		// absolute deadline, older releases do not convert it
+		assertEquals(request.getDeadline(), decoded.getDeadline());
+
+		final DefaultRequest decodedSecond = receiver.readInbound();
+		assertEquals(43, decodedSecond.getRequestId());
+		assertNull(receiver.readInbound());
+
+		final DefaultReply reply = transfer(Protocol.LEGACY, MessageDecoder.REPLIES, new DefaultReply(42, "done"));
+		assertEquals(42, reply.getRequestId());
+		assertEquals("done", reply.getResult());
+	}
+
+	@Test
+	void frameOverLimitIsRejected() {
+		final Protocol protocol = new Protocol(0, 1024);
+
+		final EmbeddedChannel sender = channel(protocol);
+		assertThrows(Exception.class, () -> sender.writeOutbound(new DefaultReply(1, "x".repeat(4096))));
+	}
+
+	private static DefaultRequest request(TestService.Item item) {
+		final DefaultRequest request = new DefaultRequest(TestService.class, ECHO, new Object[]{item}, false);
+		request.setRequestId(42);
+		return request;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T transfer(Protocol protocol, MessageDecoder decoder, Object message) {
+		final EmbeddedChannel sender = channel(protocol);
+		sender.writeOutbound(message);
+
+		final EmbeddedChannel receiver = channel(protocol, decoder);
+		receiver.writeInbound((Object) sender.readOutbound());
+
+		final Object decoded = receiver.readInbound();
+		assertNotNull(decoded);
+		assertNull(receiver.readInbound());
+		return (T) decoded;
+	}
+
+	static EmbeddedChannel channel(Protocol protocol) {
+		final EmbeddedChannel channel = new EmbeddedChannel(new ChunkWriter(), FrameEncoder.INSTANCE);
+		channel.attr(Protocol.PROTOCOL).set(protocol);
+		return channel;
+	}
+
+	static EmbeddedChannel channel(Protocol protocol, MessageDecoder decoder) {
+		final EmbeddedChannel channel = new EmbeddedChannel(new FrameDecoder(), new ChunkAggregator(4, 1024 * 1024), decoder);
+		channel.attr(Protocol.PROTOCOL).set(protocol);
+		return channel;
+	}
+}
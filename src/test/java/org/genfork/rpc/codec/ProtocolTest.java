@@ -0,0 +1,104 @@
+package org.genfork.rpc.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.genfork.rpc.KryoCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+class ProtocolTest {
+	@Test
+	void negotiatesCommonFeaturesAndSmallerFrameLength() {
+		final Protocol client = new Protocol(Protocol.CHUNKED_FRAMES | Protocol.COMPRESSION | Protocol.HEARTBEAT, 1024 * 1024);
+		final Protocol server = new Protocol(Protocol.CHUNKED_FRAMES | Protocol.HEARTBEAT | Protocol.CANCELLATION, 64 * 1024);
+
+		final Protocol agreed = server.negotiate(client, MethodTable.EMPTY);
+
+		assertTrue(agreed.isEnabled(Protocol.CHUNKED_FRAMES));
+		assertTrue(agreed.isEnabled(Protocol.HEARTBEAT));
+		assertFalse(agreed.isEnabled(Protocol.COMPRESSION));
+		assertFalse(agreed.isEnabled(Protocol.CANCELLATION));
+		assertEquals(64 * 1024, agreed.getMaxFrameLength());
+	}
+
+	@Test
+	void mergesDictionariesAndSendsMethodTable() {
+		final ClassDictionary clientDictionary = ClassDictionary.of(List.of("a.A", "a.B"));
+		final ClassDictionary serverDictionary = ClassDictionary.of(List.of("a.B", "a.C"));
+		final MethodTable methods = MethodTable.of(List.of("a.Service#call()"));
+
+		final int features = Protocol.CLASS_DICTIONARY | Protocol.METHOD_TABLE;
+		final Protocol client = new Protocol(features, Protocol.DEFAULT_MAX_FRAME_LENGTH, clientDictionary, MethodTable.EMPTY);
+		final Protocol server = new Protocol(features, Protocol.DEFAULT_MAX_FRAME_LENGTH, serverDictionary, MethodTable.EMPTY);
+
+		final Protocol agreed = server.negotiate(client, methods);
+
+		assertEquals(List.of("a.A", "a.B", "a.C"), agreed.getDictionary().getNames());
+		assertEquals(methods.getKeys(), agreed.getMethods().getKeys());
+	}
+
+	@Test
+	void unknownCodecFallsBackToKryo() {
+		final Codec other = new TestCodec("other");
+		Codecs.register(other);
+
+		final Protocol client = Protocol.supported(Protocol.DEFAULT_MAX_FRAME_LENGTH).withCodec(other);
+		final Protocol server = Protocol.supported(Protocol.DEFAULT_MAX_FRAME_LENGTH);
+
+		assertSame(KryoCodec.INSTANCE, server.negotiate(client, MethodTable.EMPTY).getCodec());
+		assertSame(other, server.withCodec(other).negotiate(client, MethodTable.EMPTY).getCodec());
+	}
+
+	@Test
+	void optionsRoundTrip() {
+		final Protocol local = Protocol.supported(1024 * 1024);
+
+		final ByteBuf buf = Unpooled.buffer();
+		local.writeTo(buf);
+		final Protocol read = Protocol.readFrom(buf);
+
+		assertNotNull(read);
+		assertEquals(local.getFeatures(), read.getFeatures());
+		assertEquals(local.getMaxFrameLength(), read.getMaxFrameLength());
+		assertEquals(local.getDictionary().getNames(), read.getDictionary().getNames());
+		assertEquals(local.getCodec().getName(), read.getCodec().getName());
+		assertFalse(buf.isReadable());
+	}
+
+	@Test
+	void missingOptionsAreNullAndMalformedOptionsFail() {
+		assertNull(Protocol.readFrom(Unpooled.EMPTY_BUFFER));
+		assertThrows(CorruptedFrameException.class, () -> Protocol.readFrom(Unpooled.wrappedBuffer(new byte[16])));
+	}
+
+	private static class TestCodec implements Codec {
+		private final String name;
+
+		private TestCodec(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public void encode(Protocol protocol, ByteBuf out, Object value) {
+			KryoCodec.INSTANCE.encode(protocol, out, value);
+		}
+
+		@Override
+		public <T> T decode(Protocol protocol, ByteBuf in, Class<T> type) {
+			return KryoCodec.INSTANCE.decode(protocol, in, type);
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package org.genfork.rpc.codec;
+
+import java.util.List;
+
+/**
+ * @author: GenCloud
+ * @date: 2024/02
+ */
+public interface TestService {
+	Item echo(Item item);
+
+	List<Item> list(int size);
+
+	record Item(int id, String name) {
+	}
+}